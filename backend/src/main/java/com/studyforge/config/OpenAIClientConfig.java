@@ -0,0 +1,68 @@
+package com.studyforge.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HTTP client used for every call to the LLM provider.
+ *
+ * Connections are pooled and kept alive, so topic generation reuses TLS sessions instead of paying
+ * a handshake per call. Pool usage is published as httpcomponents.httpclient.pool.* metrics with
+ * the tag httpclient=openai.
+ */
+@Configuration
+public class OpenAIClientConfig {
+
+    @Value("${openai.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${openai.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    // Connections idle longer than this are re-validated before reuse
+    @Value("${openai.http.validate-after-inactivity-ms:10000}")
+    private long validateAfterInactivityMs;
+
+    @Value("${openai.http.connection-ttl-seconds:300}")
+    private long connectionTtlSeconds;
+
+    @Value("${openai.http.idle-eviction-seconds:60}")
+    private long idleEvictionSeconds;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager openAIConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                // All traffic goes to a single host, so the per-route limit is the pool limit
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMs))
+                        .setTimeToLive(TimeValue.ofSeconds(connectionTtlSeconds))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "openai").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient openAIHttpClient(PoolingHttpClientConnectionManager openAIConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(openAIConnectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .disableAutomaticRetries()
+                .disableCookieManagement()
+                .build();
+    }
+}
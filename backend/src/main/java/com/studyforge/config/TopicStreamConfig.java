@@ -0,0 +1,39 @@
+package com.studyforge.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor that runs streamed topic generations, so the servlet thread is returned to the
+ * container as soon as the SSE response is opened.
+ *
+ * The pool and its queue are bounded; a stream submitted while both are full is rejected instead
+ * of waiting behind the others.
+ */
+@Configuration
+public class TopicStreamConfig {
+
+    @Value("${studyforge.topics.stream.threads:8}")
+    private int streamThreads;
+
+    @Value("${studyforge.topics.stream.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService topicStreamExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(streamThreads, streamThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "topic-stream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
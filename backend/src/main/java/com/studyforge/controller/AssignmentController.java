@@ -1,13 +1,16 @@
 package com.studyforge.controller;
 
+import com.studyforge.dto.AssignmentAttemptDto;
 import com.studyforge.dto.AssignmentEvaluationRequest;
 import com.studyforge.dto.AssignmentRequest;
 import com.studyforge.model.Assignment;
+import com.studyforge.security.services.UserDetailsImpl;
 import com.studyforge.service.AssignmentService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -53,10 +56,14 @@ public class AssignmentController {
     public ResponseEntity<List<Assignment>> getAssignmentsByDifficulty(
             @PathVariable Long topicId,
             @PathVariable String difficultyLevel) {
-        List<Assignment> assignments = assignmentService.getAllAssignmentsByTopicId(topicId); // We need to implement this method
-        return ResponseEntity.ok(assignments.stream()
-                .filter(a -> a.getDifficultyLevel().toString().equals(difficultyLevel.toUpperCase()))
-                .toList());
+        Assignment.DifficultyLevel level;
+        try {
+            level = Assignment.DifficultyLevel.valueOf(difficultyLevel.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Levels are generated the first time they are opened
+        return ResponseEntity.ok(assignmentService.getOrGenerateAssignments(topicId, level, currentUserId()));
     }
 
     @PutMapping("/{id}")
@@ -82,13 +89,42 @@ public class AssignmentController {
 
     @PostMapping("/submit")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<Assignment> submitAssignment(@Valid @RequestBody AssignmentEvaluationRequest evaluationRequest) {
-        assignmentService.evaluateAssignment(
+    public ResponseEntity<AssignmentAttemptDto> submitAssignment(@Valid @RequestBody AssignmentEvaluationRequest evaluationRequest) {
+        if (evaluationRequest.getQuestionIds().size() != evaluationRequest.getUserAnswers().size()) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Every submission is a new attempt of the signed-in user; the assignment itself is not modified
+        AssignmentAttemptDto attempt = assignmentService.evaluateAssignment(
             evaluationRequest.getAssignmentId(),
+            currentUserId(),
             evaluationRequest.getQuestionIds(),
             evaluationRequest.getUserAnswers()
         );
-        Assignment assignment = assignmentService.getAssignment(evaluationRequest.getAssignmentId());
-        return ResponseEntity.ok(assignment);
+        return ResponseEntity.ok(attempt);
+    }
+
+    @GetMapping("/topic/{topicId}/attempts/latest")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<List<AssignmentAttemptDto>> getLatestAttemptsByTopic(@PathVariable Long topicId) {
+        return ResponseEntity.ok(assignmentService.getLatestAttemptsByTopic(topicId, currentUserId()));
+    }
+
+    @GetMapping("/{id}/attempts")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<List<AssignmentAttemptDto>> getAttempts(@PathVariable Long id) {
+        return ResponseEntity.ok(assignmentService.getAttempts(id, currentUserId()));
+    }
+
+    @GetMapping("/{id}/attempts/latest")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<AssignmentAttemptDto> getLatestAttempt(@PathVariable Long id) {
+        return assignmentService.getLatestAttempt(id, currentUserId())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private Long currentUserId() {
+        UserDetailsImpl userDetails = (UserDetailsImpl) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return userDetails.getId();
     }
 }
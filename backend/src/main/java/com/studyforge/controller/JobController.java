@@ -0,0 +1,26 @@
+package com.studyforge.controller;
+
+import com.studyforge.dto.JobDto;
+import com.studyforge.model.ProcessingJob;
+import com.studyforge.service.JobService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/jobs")
+public class JobController {
+
+    private final JobService jobService;
+
+    public JobController(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<JobDto> getJob(@PathVariable Long id) {
+        ProcessingJob job = jobService.getJob(id);
+        return ResponseEntity.ok(new JobDto(job));
+    }
+}
@@ -0,0 +1,23 @@
+package com.studyforge.controller;
+
+import com.studyforge.dto.MessageResponse;
+import com.studyforge.service.llm.LlmRateLimitException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps LLM admission failures raised on request threads to HTTP responses.
+ */
+@RestControllerAdvice
+public class LlmExceptionHandler {
+
+    @ExceptionHandler(LlmRateLimitException.class)
+    public ResponseEntity<MessageResponse> handleRateLimit(LlmRateLimitException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+            .body(new MessageResponse(e.getMessage()));
+    }
+}
@@ -1,18 +1,37 @@
 package com.studyforge.controller;
 
+import com.studyforge.dto.BatchTopicGenerationRequest;
 import com.studyforge.dto.DocumentProcessingRequest;
+import com.studyforge.dto.JobDto;
 import com.studyforge.dto.SyllabusDto;
 import com.studyforge.dto.TopicDto;
+import com.studyforge.model.ProcessingJob;
 import com.studyforge.model.Syllabus;
 import com.studyforge.model.Topic;
+import com.studyforge.service.JobService;
 import com.studyforge.service.SyllabusService;
+import com.studyforge.service.llm.LlmRateLimitException;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @RestController
@@ -20,9 +39,17 @@ import java.util.stream.Collectors;
 public class SyllabusController {
 
     private final SyllabusService syllabusService;
+    private final JobService jobService;
+    private final ExecutorService topicStreamExecutor;
 
-    public SyllabusController(SyllabusService syllabusService) {
+    @Value("${studyforge.topics.stream.timeout-ms:600000}")
+    private long streamTimeoutMs;
+
+    public SyllabusController(SyllabusService syllabusService, JobService jobService,
+                              @Qualifier("topicStreamExecutor") ExecutorService topicStreamExecutor) {
         this.syllabusService = syllabusService;
+        this.jobService = jobService;
+        this.topicStreamExecutor = topicStreamExecutor;
     }
 
     @PostMapping
@@ -65,18 +92,18 @@ public class SyllabusController {
 
     @PostMapping("/upload")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<SyllabusDto> uploadSyllabus(
+    public ResponseEntity<JobDto> uploadSyllabus(
             @RequestParam("file") MultipartFile file,
             @RequestParam("title") String title,
             @RequestParam("description") String description,
             @RequestParam("userId") Long userId) {
-        Syllabus syllabus = syllabusService.processDocument(file, title, description, userId);
-        return ResponseEntity.ok(new SyllabusDto(syllabus));
+        ProcessingJob job = jobService.submitDocumentProcessing(file, title, description, userId, null, null);
+        return accepted(job);
     }
     
     @PostMapping("/upload-with-dates")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<SyllabusDto> uploadSyllabusWithDates(
+    public ResponseEntity<JobDto> uploadSyllabusWithDates(
             @RequestParam("file") MultipartFile file,
             @RequestParam("title") String title,
             @RequestParam("description") String description,
@@ -96,13 +123,13 @@ public class SyllabusController {
             endDate = LocalDateTime.parse(endDateStr + "T23:59:59");
         }
         
-        Syllabus syllabus = syllabusService.processDocument(file, title, description, userId, startDate, endDate);
-        return ResponseEntity.ok(new SyllabusDto(syllabus));
+        ProcessingJob job = jobService.submitDocumentProcessing(file, title, description, userId, startDate, endDate);
+        return accepted(job);
     }
     
     @PostMapping("/process")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<SyllabusDto> processDocument(
+    public ResponseEntity<JobDto> processDocument(
             @RequestPart("file") MultipartFile file,
             @RequestPart("request") DocumentProcessingRequest request) {
         // Process dates from the request
@@ -127,22 +154,95 @@ public class SyllabusController {
             }
         }
         
-        Syllabus syllabus = syllabusService.processDocument(file, 
-                                                          request.getTitle(), 
-                                                          request.getDescription(), 
-                                                          request.getUserId(), 
-                                                          startDate, 
-                                                          endDate);
-        return ResponseEntity.ok(new SyllabusDto(syllabus));
+        ProcessingJob job = jobService.submitDocumentProcessing(file, 
+                                                               request.getTitle(), 
+                                                               request.getDescription(), 
+                                                               request.getUserId(), 
+                                                               startDate, 
+                                                               endDate);
+        return accepted(job);
     }
 
     @PostMapping("/{syllabusId}/generate-topics")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<List<TopicDto>> generateTopics(@PathVariable Long syllabusId) {
-        List<Topic> topics = syllabusService.generateTopicsFromSyllabus(syllabusId);
-        List<TopicDto> topicDtos = topics.stream()
-            .map(TopicDto::new)
+    public ResponseEntity<JobDto> generateTopics(@PathVariable Long syllabusId) {
+        ProcessingJob job = jobService.submitTopicGeneration(syllabusId);
+        return accepted(job);
+    }
+    
+    /**
+     * Queue topic generation for many syllabi at once through the LLM batch API, e.g. for a bulk
+     * import. Results arrive within the batch completion window rather than seconds; poll each job
+     * under GET /jobs/{id}.
+     */
+    @PostMapping("/batch/generate-topics")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<List<JobDto>> generateTopicsInBatch(@Valid @RequestBody BatchTopicGenerationRequest request) {
+        List<JobDto> jobs = jobService.submitBatchTopicGeneration(request.getSyllabusIds()).stream()
+            .map(JobDto::new)
             .collect(Collectors.toList());
-        return ResponseEntity.ok(topicDtos);
+        return ResponseEntity.accepted().body(jobs);
+    }
+    
+    /**
+     * Generate topics and push each one as a "topic" event as soon as it is persisted, followed by
+     * a "complete" event with the final list (deadlines included). Failures end the stream with an
+     * "error" event. Generation keeps running if the client disconnects.
+     */
+    @PostMapping(value = "/{syllabusId}/generate-topics/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public SseEmitter streamTopics(@PathVariable Long syllabusId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        AtomicBoolean connected = new AtomicBoolean(true);
+        emitter.onCompletion(() -> connected.set(false));
+        emitter.onTimeout(() -> connected.set(false));
+        emitter.onError(e -> connected.set(false));
+        
+        try {
+            topicStreamExecutor.execute(() -> {
+                try {
+                    List<Topic> topics = syllabusService.streamTopicsFromSyllabus(syllabusId,
+                        topic -> send(emitter, connected, "topic", new TopicDto(topic)));
+                    List<TopicDto> topicDtos = topics.stream()
+                        .map(TopicDto::new)
+                        .collect(Collectors.toList());
+                    send(emitter, connected, "complete", topicDtos);
+                } catch (LlmRateLimitException e) {
+                    // The 200 is already committed, so the quota rejection travels in the event
+                    send(emitter, connected, "error", Map.of(
+                        "message", e.getMessage(),
+                        "status", HttpStatus.TOO_MANY_REQUESTS.value(),
+                        "retryAfterSeconds", e.getRetryAfter().toSeconds()));
+                } catch (RuntimeException e) {
+                    String message = e.getMessage() != null ? e.getMessage() : "Topic generation failed";
+                    send(emitter, connected, "error", Map.of("message", message));
+                }
+                emitter.complete();
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many topic streams in progress");
+        }
+        return emitter;
+    }
+    
+    private void send(SseEmitter emitter, AtomicBoolean connected, String eventName, Object data) {
+        if (!connected.get()) {
+            return;
+        }
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; topics are still persisted for the next read
+            connected.set(false);
+        }
+    }
+    
+    // 202 with the job and its status URL; clients poll GET /jobs/{id} for the result
+    private ResponseEntity<JobDto> accepted(ProcessingJob job) {
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+            .path("/jobs/{id}")
+            .buildAndExpand(job.getId())
+            .toUri();
+        return ResponseEntity.accepted().location(location).body(new JobDto(job));
     }
 }
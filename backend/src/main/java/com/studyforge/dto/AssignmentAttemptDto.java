@@ -0,0 +1,141 @@
+package com.studyforge.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.studyforge.model.AssignmentAttempt;
+import com.studyforge.model.AttemptAnswer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class AssignmentAttemptDto {
+    private Long id;
+    private Long userId;
+    private Long assignmentId;
+    private int earnedPoints;
+    private int maxPoints;
+    
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime submittedAt;
+    
+    // Left out of attempt listings
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<AnswerDto> answers;
+    
+    public static class AnswerDto {
+        private Long questionId;
+        private String answer;
+        private Boolean isCorrect;
+        
+        public AnswerDto() {}
+        
+        public AnswerDto(AttemptAnswer answer) {
+            this.questionId = answer.getQuestion().getId();
+            this.answer = answer.getAnswer();
+            this.isCorrect = answer.getIsCorrect();
+        }
+        
+        public Long getQuestionId() {
+            return questionId;
+        }
+        
+        public void setQuestionId(Long questionId) {
+            this.questionId = questionId;
+        }
+        
+        public String getAnswer() {
+            return answer;
+        }
+        
+        public void setAnswer(String answer) {
+            this.answer = answer;
+        }
+        
+        public Boolean getIsCorrect() {
+            return isCorrect;
+        }
+        
+        public void setIsCorrect(Boolean isCorrect) {
+            this.isCorrect = isCorrect;
+        }
+    }
+    
+    // Default constructor
+    public AssignmentAttemptDto() {}
+    
+    // Constructor from entity, without the answers
+    public AssignmentAttemptDto(AssignmentAttempt attempt) {
+        this.id = attempt.getId();
+        this.userId = attempt.getUser().getId();
+        this.assignmentId = attempt.getAssignment().getId();
+        this.earnedPoints = attempt.getEarnedPoints();
+        this.maxPoints = attempt.getMaxPoints();
+        this.submittedAt = attempt.getSubmittedAt();
+    }
+    
+    // Constructor from entities
+    public AssignmentAttemptDto(AssignmentAttempt attempt, List<AttemptAnswer> answers) {
+        this(attempt);
+        this.answers = answers.stream()
+                .map(AnswerDto::new)
+                .collect(Collectors.toList());
+    }
+    
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+    
+    public void setAssignmentId(Long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+    
+    public int getEarnedPoints() {
+        return earnedPoints;
+    }
+    
+    public void setEarnedPoints(int earnedPoints) {
+        this.earnedPoints = earnedPoints;
+    }
+    
+    public int getMaxPoints() {
+        return maxPoints;
+    }
+    
+    public void setMaxPoints(int maxPoints) {
+        this.maxPoints = maxPoints;
+    }
+    
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+    
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+    
+    public List<AnswerDto> getAnswers() {
+        return answers;
+    }
+    
+    public void setAnswers(List<AnswerDto> answers) {
+        this.answers = answers;
+    }
+}
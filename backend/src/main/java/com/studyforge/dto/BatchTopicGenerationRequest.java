@@ -0,0 +1,18 @@
+package com.studyforge.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class BatchTopicGenerationRequest {
+    @NotEmpty
+    private List<Long> syllabusIds;
+
+    public List<Long> getSyllabusIds() {
+        return syllabusIds;
+    }
+
+    public void setSyllabusIds(List<Long> syllabusIds) {
+        this.syllabusIds = syllabusIds;
+    }
+}
@@ -0,0 +1,93 @@
+package com.studyforge.dto;
+
+import com.studyforge.model.Syllabus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Input of a queued document-processing job: the already stored upload plus the syllabus details
+ * the client sent with it.
+ */
+public class DocumentJobPayload {
+    private String contentHash;
+    private String storagePath;
+    private long sizeBytes;
+    private Syllabus.DocumentType documentType;
+    private String title;
+    private String description;
+    private Long userId;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    public void setStoragePath(String storagePath) {
+        this.storagePath = storagePath;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public Syllabus.DocumentType getDocumentType() {
+        return documentType;
+    }
+
+    public void setDocumentType(Syllabus.DocumentType documentType) {
+        this.documentType = documentType;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDateTime endDate) {
+        this.endDate = endDate;
+    }
+}
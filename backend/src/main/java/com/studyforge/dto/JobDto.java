@@ -0,0 +1,113 @@
+package com.studyforge.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.studyforge.model.ProcessingJob;
+
+import java.time.LocalDateTime;
+
+public class JobDto {
+    private Long id;
+    private ProcessingJob.JobType type;
+    private ProcessingJob.JobStatus status;
+    private Long syllabusId;
+    private String errorMessage;
+    // Already serialized JSON: a SyllabusDto or a list of TopicDto depending on the job type
+    @JsonRawValue
+    private String result;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    // Default constructor
+    public JobDto() {}
+
+    // Constructor from entity
+    public JobDto(ProcessingJob job) {
+        this.id = job.getId();
+        this.type = job.getType();
+        this.status = job.getStatus();
+        this.syllabusId = job.getSyllabusId();
+        this.errorMessage = job.getErrorMessage();
+        this.result = job.getResult();
+        this.createdAt = job.getCreatedAt();
+        this.startedAt = job.getStartedAt();
+        this.finishedAt = job.getFinishedAt();
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public ProcessingJob.JobType getType() {
+        return type;
+    }
+
+    public void setType(ProcessingJob.JobType type) {
+        this.type = type;
+    }
+
+    public ProcessingJob.JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ProcessingJob.JobStatus status) {
+        this.status = status;
+    }
+
+    public Long getSyllabusId() {
+        return syllabusId;
+    }
+
+    public void setSyllabusId(Long syllabusId) {
+        this.syllabusId = syllabusId;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
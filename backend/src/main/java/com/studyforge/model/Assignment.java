@@ -1,10 +1,13 @@
 package com.studyforge.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -18,7 +21,8 @@ import java.util.Set;
 @AllArgsConstructor
 public class Assignment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "assignments_seq")
+    @SequenceGenerator(name = "assignments_seq", sequenceName = "assignments_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -32,8 +36,11 @@ public class Assignment {
     
     private Integer maxPoints;
     
+    // Legacy shared results, no longer written or sent; each user's results are AssignmentAttempts
+    @JsonIgnore
     private Boolean isCompleted = false;
     
+    @JsonIgnore
     private Integer earnedPoints;
     
     @Column(nullable = false)
@@ -45,6 +52,8 @@ public class Assignment {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "topic_id", nullable = false)
     @JsonIgnoreProperties("assignments")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Topic topic;
     
     @OneToMany(mappedBy = "assignment", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -0,0 +1,69 @@
+package com.studyforge.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * One user's graded submission of an assignment. Attempts are only ever inserted, so students
+ * taking the same assignment never write to shared rows; a user's current result is their latest
+ * attempt. Attempts and their answers are deleted by the database along with their user or
+ * assignment.
+ */
+@Entity
+@Table(name = "assignment_attempts", indexes = {
+    // Latest attempt per user and assignment
+    @Index(name = "idx_assignment_attempts_user_assignment", columnList = "user_id, assignment_id, submitted_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssignmentAttempt {
+    // Violated when the assignment was deleted after the submission was graded
+    public static final String ASSIGNMENT_FOREIGN_KEY = "fk_assignment_attempts_assignment";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "assignment_attempts_seq")
+    @SequenceGenerator(name = "assignment_attempts_seq", sequenceName = "assignment_attempts_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_assignment_attempts_user"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "assignment_id", nullable = false, updatable = false,
+            foreignKey = @ForeignKey(name = ASSIGNMENT_FOREIGN_KEY))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Assignment assignment;
+
+    @Column(updatable = false)
+    private int earnedPoints;
+
+    @Column(updatable = false)
+    private int maxPoints;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime submittedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.submittedAt = LocalDateTime.now();
+    }
+}
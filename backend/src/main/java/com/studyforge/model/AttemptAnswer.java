@@ -0,0 +1,54 @@
+package com.studyforge.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * A user's answer to one question within an {@link AssignmentAttempt}. Inserted together with the
+ * attempt and never updated; the database deletes it with its attempt or question.
+ */
+@Entity
+@Table(name = "attempt_answers", indexes = {
+    @Index(name = "idx_attempt_answers_attempt", columnList = "attempt_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttemptAnswer {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attempt_answers_seq")
+    @SequenceGenerator(name = "attempt_answers_seq", sequenceName = "attempt_answers_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "attempt_id", nullable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_attempt_answers_attempt"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private AssignmentAttempt attempt;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "question_id", nullable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_attempt_answers_question"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Question question;
+
+    @Column(length = 2000, updatable = false)
+    private String answer;
+
+    // Null for questions that are not graded automatically, such as essays
+    @Column(updatable = false)
+    private Boolean isCorrect;
+}
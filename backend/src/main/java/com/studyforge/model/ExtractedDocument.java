@@ -0,0 +1,51 @@
+package com.studyforge.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Text extracted from an uploaded document, keyed by the SHA-256 of the uploaded bytes.
+ * Syllabi created from identical files share a single row and a single stored blob.
+ */
+@Entity
+@Table(name = "extracted_documents")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractedDocument {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "extracted_documents_seq")
+    @SequenceGenerator(name = "extracted_documents_seq", sequenceName = "extracted_documents_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    private Syllabus.DocumentType documentType;
+
+    @Column(nullable = false)
+    private String storagePath;
+
+    private Long sizeBytes;
+
+    @Column(columnDefinition = "TEXT")
+    private String text;
+
+    // Topics read from the document's own outline as a JSON array, empty if the outline is not
+    // clear enough; null for documents extracted before outlines were stored
+    @Column(columnDefinition = "TEXT")
+    private String outlineTopics;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,72 @@
+package com.studyforge.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A batch of topic-generation requests submitted to the provider's batch API. The jobs it answers
+ * point at it through {@link ProcessingJob#getBatchId()}.
+ */
+@Entity
+@Table(name = "llm_batches", indexes = {
+    @Index(name = "idx_llm_batches_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LlmBatch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "llm_batches_seq")
+    @SequenceGenerator(name = "llm_batches_seq", sequenceName = "llm_batches_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String providerBatchId;
+
+    private String inputFileId;
+
+    private String outputFileId;
+
+    private String errorFileId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BatchStatus status = BatchStatus.SUBMITTED;
+
+    // Last status reported by the provider, e.g. in_progress or expired
+    private String providerStatus;
+
+    private int jobCount;
+
+    private int requestCount;
+
+    private LocalDateTime finishedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum BatchStatus {
+        SUBMITTED,
+        COLLECTING,
+        COMPLETED,
+        FAILED
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,45 @@
+package com.studyforge.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Durable tier of the LLM response cache: the content of a completion, keyed by a fingerprint of
+ * the prompt that produced it.
+ */
+@Entity
+@Table(name = "llm_response_cache", indexes = {
+    @Index(name = "idx_llm_response_cache_expires", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LlmResponseCacheEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "llm_response_cache_seq")
+    @SequenceGenerator(name = "llm_response_cache_seq", sequenceName = "llm_response_cache_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String cacheKey;
+
+    private String model;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String content;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,108 @@
+package com.studyforge.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A unit of background work (document processing, topic generation) queued in the database.
+ * The table is the queue: workers on any node claim QUEUED rows and hold a lease while running them.
+ * Jobs are claimed by priority and due date, not only in arrival order.
+ */
+@Entity
+@Table(name = "processing_jobs", indexes = {
+    @Index(name = "idx_processing_jobs_status_created", columnList = "status, created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessingJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "processing_jobs_seq")
+    @SequenceGenerator(name = "processing_jobs_seq", sequenceName = "processing_jobs_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status = JobStatus.QUEUED;
+
+    private Long userId;
+
+    private Long syllabusId;
+
+    // The provider batch a GENERATE_TOPICS_BATCH job was submitted in
+    private Long batchId;
+
+    // Null for jobs queued before priorities existed, which are treated as NORMAL
+    @Enumerated(EnumType.STRING)
+    private Priority priority = Priority.NORMAL;
+
+    // When the student needs the result: the syllabus' start date. Earlier due dates are claimed first
+    private LocalDateTime dueAt;
+
+    // JSON input of the job, its shape depends on the type
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    // JSON result returned to pollers once the job succeeded
+    @Column(columnDefinition = "TEXT")
+    private String result;
+
+    @Column(length = 2000)
+    private String errorMessage;
+
+    private int attempts;
+
+    private String lockedBy;
+
+    private LocalDateTime leaseExpiresAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum JobType {
+        PROCESS_DOCUMENT,
+        GENERATE_TOPICS,
+        // Topic generation through the provider's batch API, for bulk imports
+        GENERATE_TOPICS_BATCH
+    }
+
+    public enum Priority {
+        // Work a user asked for
+        NORMAL,
+        // Bulk and retried work nobody is waiting on; claimed after NORMAL jobs until it has aged
+        BACKGROUND
+    }
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
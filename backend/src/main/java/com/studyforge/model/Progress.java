@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Progress {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "progress_seq")
+    @SequenceGenerator(name = "progress_seq", sequenceName = "progress_seq", allocationSize = 50)
     private Long id;
     
     private boolean completed;
@@ -1,10 +1,13 @@
 package com.studyforge.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -18,7 +21,8 @@ import java.util.Set;
 @AllArgsConstructor
 public class Question {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "questions_seq")
+    @SequenceGenerator(name = "questions_seq", sequenceName = "questions_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 1000)
@@ -38,6 +42,8 @@ public class Question {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "assignment_id", nullable = false)
     @JsonIgnoreProperties("questions")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Assignment assignment;
     
     @OneToMany(mappedBy = "question", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -47,9 +53,12 @@ public class Question {
     @Column(length = 2000)
     private String correctAnswer;
     
+    // Legacy shared answer fields, no longer written or sent; each user's answers are AttemptAnswers
     @Column(length = 2000)
+    @JsonIgnore
     private String userAnswer;
     
+    @JsonIgnore
     private Boolean isCorrect;
 
     public enum QuestionType {
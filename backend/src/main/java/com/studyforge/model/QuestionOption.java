@@ -4,7 +4,9 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
 @Table(name = "question_options")
@@ -14,7 +16,8 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class QuestionOption {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "question_options_seq")
+    @SequenceGenerator(name = "question_options_seq", sequenceName = "question_options_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -22,8 +25,11 @@ public class QuestionOption {
     
     private Boolean isCorrect = false;
     
+    // Back-references stay out of equals/hashCode/toString, which would otherwise recurse through the parent's collection
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "question_id", nullable = false)
     @JsonIgnoreProperties("options")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Question question;
 }
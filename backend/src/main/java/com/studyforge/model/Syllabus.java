@@ -18,7 +18,8 @@ import java.util.Set;
 @AllArgsConstructor
 public class Syllabus {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "syllabi_seq")
+    @SequenceGenerator(name = "syllabi_seq", sequenceName = "syllabi_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -32,9 +33,23 @@ public class Syllabus {
 
     private String originalDocumentUrl;
     
+    // SHA-256 of the uploaded bytes, the key of the document's extracted text
+    @Column(length = 64)
+    private String contentHash;
+    
     private LocalDateTime startDate;
     private LocalDateTime endDate;
     
+    // Single-flight lease for topic generation, only written through SyllabusRepository's lease queries
+    @Column(insertable = false, updatable = false)
+    private String topicGenerationOwner;
+    
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime topicGenerationLeaseUntil;
+    
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime topicsGeneratedAt;
+    
     @Column(nullable = false)
     private LocalDateTime createdAt;
     
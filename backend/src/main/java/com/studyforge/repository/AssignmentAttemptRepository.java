@@ -0,0 +1,28 @@
+package com.studyforge.repository;
+
+import com.studyforge.model.AssignmentAttempt;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AssignmentAttemptRepository extends JpaRepository<AssignmentAttempt, Long> {
+    Optional<AssignmentAttempt> findFirstByUserIdAndAssignmentIdOrderBySubmittedAtDescIdDesc(Long userId, Long assignmentId);
+
+    List<AssignmentAttempt> findByUserIdAndAssignmentIdOrderBySubmittedAtDescIdDesc(Long userId, Long assignmentId);
+
+    // The user's attempts at the assignments of a topic, latest first
+    @Query("SELECT a FROM AssignmentAttempt a WHERE a.user.id = :userId AND a.assignment.topic.id = :topicId " +
+            "ORDER BY a.submittedAt DESC, a.id DESC")
+    List<AssignmentAttempt> findByUserIdAndTopicId(@Param("userId") Long userId, @Param("topicId") Long topicId);
+
+    // Share of the points earned on the user's most recent scored attempts, across all assignments
+    @Query("SELECT a.earnedPoints * 1.0 / a.maxPoints FROM AssignmentAttempt a " +
+            "WHERE a.user.id = :userId AND a.maxPoints > 0 ORDER BY a.submittedAt DESC")
+    List<Double> findRecentScores(@Param("userId") Long userId, Pageable pageable);
+}
@@ -1,13 +1,41 @@
 package com.studyforge.repository;
 
 import com.studyforge.model.Assignment;
+import com.studyforge.model.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
+
+    // Scalar rows an answer key is compiled from, read without loading the question entity graph
+    interface AnswerKeyQuestion {
+        Long getId();
+        Question.QuestionType getType();
+        Integer getPoints();
+        String getCorrectAnswer();
+    }
+
+    interface AnswerKeyOption {
+        Long getQuestionId();
+        Long getId();
+        String getText();
+        Boolean getCorrect();
+    }
+
     List<Assignment> findByTopicId(Long topicId);
     List<Assignment> findByTopicIdAndDifficultyLevel(Long topicId, Assignment.DifficultyLevel difficultyLevel);
+    boolean existsByTopicIdAndDifficultyLevel(Long topicId, Assignment.DifficultyLevel difficultyLevel);
+
+    @Query("SELECT q.id AS id, q.type AS type, q.points AS points, q.correctAnswer AS correctAnswer " +
+            "FROM Question q WHERE q.assignment.id = :assignmentId")
+    List<AnswerKeyQuestion> findAnswerKeyQuestions(@Param("assignmentId") Long assignmentId);
+
+    @Query("SELECT o.question.id AS questionId, o.id AS id, o.text AS text, o.isCorrect AS correct " +
+            "FROM QuestionOption o WHERE o.question.assignment.id = :assignmentId")
+    List<AnswerKeyOption> findAnswerKeyOptions(@Param("assignmentId") Long assignmentId);
 }
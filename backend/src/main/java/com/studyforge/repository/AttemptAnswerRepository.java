@@ -0,0 +1,15 @@
+package com.studyforge.repository;
+
+import com.studyforge.model.AttemptAnswer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AttemptAnswerRepository extends JpaRepository<AttemptAnswer, Long> {
+    @Query("SELECT a FROM AttemptAnswer a WHERE a.attempt.id = :attemptId ORDER BY a.question.id")
+    List<AttemptAnswer> findByAttemptIdOrderByQuestionId(@Param("attemptId") Long attemptId);
+}
@@ -0,0 +1,12 @@
+package com.studyforge.repository;
+
+import com.studyforge.model.ExtractedDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ExtractedDocumentRepository extends JpaRepository<ExtractedDocument, Long> {
+    Optional<ExtractedDocument> findByContentHash(String contentHash);
+}
@@ -0,0 +1,72 @@
+package com.studyforge.repository;
+
+import com.studyforge.model.LlmBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface LlmBatchRepository extends JpaRepository<LlmBatch, Long> {
+
+    List<LlmBatch> findByStatusOrderByCreatedAt(LlmBatch.BatchStatus status);
+
+    // Only one node collects the results of a finished batch
+    @Modifying
+    @Query("UPDATE LlmBatch b SET b.status = :collecting, b.updatedAt = :now " +
+            "WHERE b.id = :id AND b.status = :submitted")
+    int claimForCollection(@Param("id") Long id,
+                           @Param("submitted") LlmBatch.BatchStatus submitted,
+                           @Param("collecting") LlmBatch.BatchStatus collecting,
+                           @Param("now") LocalDateTime now);
+
+    // Only touches a batch still waiting for the provider, so a concurrent claim is never undone
+    @Modifying
+    @Query("UPDATE LlmBatch b SET b.providerStatus = :providerStatus, b.updatedAt = :now " +
+            "WHERE b.id = :id AND b.status = :submitted")
+    int updateProviderStatus(@Param("id") Long id,
+                             @Param("submitted") LlmBatch.BatchStatus submitted,
+                             @Param("providerStatus") String providerStatus,
+                             @Param("now") LocalDateTime now);
+
+    // Hands a batch this node failed to collect back to the pollers
+    @Modifying
+    @Query("UPDATE LlmBatch b SET b.status = :submitted, b.updatedAt = :now " +
+            "WHERE b.id = :id AND b.status = :collecting")
+    int releaseCollection(@Param("id") Long id,
+                          @Param("collecting") LlmBatch.BatchStatus collecting,
+                          @Param("submitted") LlmBatch.BatchStatus submitted,
+                          @Param("now") LocalDateTime now);
+
+    // Refreshed while a collection runs, so a long one is not taken for a dead one
+    @Modifying
+    @Query("UPDATE LlmBatch b SET b.updatedAt = :now WHERE b.id = :id AND b.status = :collecting")
+    int renewCollection(@Param("id") Long id,
+                        @Param("collecting") LlmBatch.BatchStatus collecting,
+                        @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE LlmBatch b SET b.status = :status, b.providerStatus = :providerStatus, " +
+            "b.outputFileId = :outputFileId, b.errorFileId = :errorFileId, b.finishedAt = :now, b.updatedAt = :now " +
+            "WHERE b.id = :id AND b.status = :collecting")
+    int finishCollection(@Param("id") Long id,
+                         @Param("collecting") LlmBatch.BatchStatus collecting,
+                         @Param("status") LlmBatch.BatchStatus status,
+                         @Param("providerStatus") String providerStatus,
+                         @Param("outputFileId") String outputFileId,
+                         @Param("errorFileId") String errorFileId,
+                         @Param("now") LocalDateTime now);
+
+    // Batches whose collector died are handed back to the pollers
+    @Modifying
+    @Query("UPDATE LlmBatch b SET b.status = :submitted, b.updatedAt = :now " +
+            "WHERE b.status = :collecting AND b.updatedAt < :staleBefore")
+    int releaseStaleCollections(@Param("submitted") LlmBatch.BatchStatus submitted,
+                                @Param("collecting") LlmBatch.BatchStatus collecting,
+                                @Param("staleBefore") LocalDateTime staleBefore,
+                                @Param("now") LocalDateTime now);
+}
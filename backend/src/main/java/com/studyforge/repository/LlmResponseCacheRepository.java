@@ -0,0 +1,26 @@
+package com.studyforge.repository;
+
+import com.studyforge.model.LlmResponseCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface LlmResponseCacheRepository extends JpaRepository<LlmResponseCacheEntry, Long> {
+    Optional<LlmResponseCacheEntry> findByCacheKeyAndExpiresAtAfter(String cacheKey, LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM LlmResponseCacheEntry e WHERE e.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    // Oldest entries go first once the table grows past its size limit
+    @Modifying
+    @Query(value = "DELETE FROM llm_response_cache WHERE id IN " +
+            "(SELECT id FROM llm_response_cache ORDER BY created_at LIMIT :count)", nativeQuery = true)
+    int deleteOldest(@Param("count") long count);
+}
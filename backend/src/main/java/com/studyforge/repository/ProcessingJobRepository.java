@@ -0,0 +1,134 @@
+package com.studyforge.repository;
+
+import com.studyforge.model.ProcessingJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProcessingJobRepository extends JpaRepository<ProcessingJob, Long> {
+
+    Optional<ProcessingJob> findFirstBySyllabusIdAndTypeAndStatusInOrderByCreatedAtDesc(
+            Long syllabusId, ProcessingJob.JobType type, Collection<ProcessingJob.JobStatus> statuses);
+
+    // Rows locked by another node's claim are skipped, so concurrent pollers never claim the same job.
+    // Background jobs queued after agedBefore wait behind the rest; then the earliest due date goes first.
+    @Query(value = "SELECT * FROM processing_jobs WHERE status = 'QUEUED' AND type IN (:types) " +
+            "ORDER BY CASE WHEN priority = 'BACKGROUND' AND created_at > :agedBefore THEN 1 ELSE 0 END, " +
+            "due_at NULLS LAST, created_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ProcessingJob> lockQueued(@Param("types") Collection<String> types,
+                                   @Param("agedBefore") LocalDateTime agedBefore,
+                                   @Param("limit") int limit);
+
+    List<ProcessingJob> findByBatchIdAndStatus(Long batchId, ProcessingJob.JobStatus status);
+
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.status = :queued, j.lockedBy = null, j.leaseExpiresAt = null " +
+            "WHERE j.status = :running AND j.leaseExpiresAt < :now AND j.attempts < :maxAttempts")
+    int requeueExpired(@Param("queued") ProcessingJob.JobStatus queued,
+                       @Param("running") ProcessingJob.JobStatus running,
+                       @Param("now") LocalDateTime now,
+                       @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.status = :failed, j.finishedAt = :now, " +
+            "j.errorMessage = 'Job was abandoned by its worker too many times' " +
+            "WHERE j.status = :running AND j.leaseExpiresAt < :now AND j.attempts >= :maxAttempts")
+    int failExpired(@Param("failed") ProcessingJob.JobStatus failed,
+                    @Param("running") ProcessingJob.JobStatus running,
+                    @Param("now") LocalDateTime now,
+                    @Param("maxAttempts") int maxAttempts);
+
+    // The owned* updates match a job only while this claim still holds it: another node that requeued
+    // and reclaimed it has changed locked_by, and a reclaim on this node has bumped attempts.
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE j.id = :id AND j.status = :running AND j.lockedBy = :nodeId AND j.attempts = :attempts")
+    int renewOwnedLease(@Param("id") Long id,
+                        @Param("nodeId") String nodeId,
+                        @Param("attempts") int attempts,
+                        @Param("running") ProcessingJob.JobStatus running,
+                        @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.status = :status, j.syllabusId = :syllabusId, j.result = :result, " +
+            "j.errorMessage = :errorMessage, j.finishedAt = :finishedAt, j.leaseExpiresAt = null, " +
+            "j.updatedAt = :finishedAt " +
+            "WHERE j.id = :id AND j.status = :running AND j.lockedBy = :nodeId AND j.attempts = :attempts")
+    int completeOwned(@Param("id") Long id,
+                      @Param("nodeId") String nodeId,
+                      @Param("attempts") int attempts,
+                      @Param("running") ProcessingJob.JobStatus running,
+                      @Param("status") ProcessingJob.JobStatus status,
+                      @Param("syllabusId") Long syllabusId,
+                      @Param("result") String result,
+                      @Param("errorMessage") String errorMessage,
+                      @Param("finishedAt") LocalDateTime finishedAt);
+
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.status = :queued, j.lockedBy = null, j.leaseExpiresAt = null, " +
+            "j.startedAt = null, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.status = :running AND j.lockedBy = :nodeId AND j.attempts = :attempts")
+    int requeueOwned(@Param("id") Long id,
+                     @Param("nodeId") String nodeId,
+                     @Param("attempts") int attempts,
+                     @Param("running") ProcessingJob.JobStatus running,
+                     @Param("queued") ProcessingJob.JobStatus queued,
+                     @Param("now") LocalDateTime now);
+
+    // Hands back a job this node claimed but did not get to run, without counting the attempt
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.status = :queued, j.lockedBy = null, j.leaseExpiresAt = null, " +
+            "j.startedAt = null, j.attempts = j.attempts - 1, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.status = :running AND j.lockedBy = :nodeId AND j.attempts = :attempts")
+    int releaseOwned(@Param("id") Long id,
+                     @Param("nodeId") String nodeId,
+                     @Param("attempts") int attempts,
+                     @Param("running") ProcessingJob.JobStatus running,
+                     @Param("queued") ProcessingJob.JobStatus queued,
+                     @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.type = :type, j.priority = :priority, j.status = :queued, " +
+            "j.batchId = null, j.lockedBy = null, j.leaseExpiresAt = null, j.startedAt = null, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.status = :running AND j.lockedBy = :nodeId AND j.attempts = :attempts")
+    int requeueOwnedAs(@Param("id") Long id,
+                       @Param("nodeId") String nodeId,
+                       @Param("attempts") int attempts,
+                       @Param("running") ProcessingJob.JobStatus running,
+                       @Param("queued") ProcessingJob.JobStatus queued,
+                       @Param("type") ProcessingJob.JobType type,
+                       @Param("priority") ProcessingJob.Priority priority,
+                       @Param("now") LocalDateTime now);
+
+    // A job submitted in a batch waits without owner or lease until a collector claims it
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.batchId = :batchId, j.payload = :payload, j.lockedBy = null, " +
+            "j.leaseExpiresAt = null, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.status = :running AND j.lockedBy = :nodeId AND j.attempts = :attempts")
+    int submitOwned(@Param("id") Long id,
+                    @Param("nodeId") String nodeId,
+                    @Param("attempts") int attempts,
+                    @Param("running") ProcessingJob.JobStatus running,
+                    @Param("batchId") Long batchId,
+                    @Param("payload") String payload,
+                    @Param("now") LocalDateTime now);
+
+    // Only one collector saves the results of a batched job, even if the batch is collected twice
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.lockedBy = :nodeId, j.leaseExpiresAt = :leaseExpiresAt, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.batchId = :batchId AND j.status = :running AND j.leaseExpiresAt IS NULL")
+    int claimBatched(@Param("id") Long id,
+                     @Param("batchId") Long batchId,
+                     @Param("running") ProcessingJob.JobStatus running,
+                     @Param("nodeId") String nodeId,
+                     @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt,
+                     @Param("now") LocalDateTime now);
+}
@@ -2,10 +2,13 @@ package com.studyforge.repository;
 
 import com.studyforge.model.Syllabus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +19,35 @@ public interface SyllabusRepository extends JpaRepository<Syllabus, Long> {
     // Add a method with eager loading
     @Query("SELECT s FROM Syllabus s LEFT JOIN FETCH s.user LEFT JOIN FETCH s.topics WHERE s.id = :id")
     Optional<Syllabus> findByIdWithDetails(@Param("id") Long id);
+    
+    // Topic generation lease: at most one caller across all nodes generates topics for a syllabus
+    @Transactional
+    @Modifying
+    @Query("UPDATE Syllabus s SET s.topicGenerationOwner = :owner, s.topicGenerationLeaseUntil = :until " +
+           "WHERE s.id = :id AND (s.topicGenerationLeaseUntil IS NULL OR s.topicGenerationLeaseUntil < :now)")
+    int acquireTopicGenerationLease(@Param("id") Long id, @Param("owner") String owner,
+                                    @Param("until") LocalDateTime until, @Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Syllabus s SET s.topicGenerationLeaseUntil = :until " +
+           "WHERE s.id = :id AND s.topicGenerationOwner = :owner")
+    int renewTopicGenerationLease(@Param("id") Long id, @Param("owner") String owner,
+                                  @Param("until") LocalDateTime until);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Syllabus s SET s.topicGenerationOwner = NULL, s.topicGenerationLeaseUntil = NULL, " +
+           "s.topicsGeneratedAt = :generatedAt WHERE s.id = :id AND s.topicGenerationOwner = :owner")
+    int completeTopicGenerationLease(@Param("id") Long id, @Param("owner") String owner,
+                                     @Param("generatedAt") LocalDateTime generatedAt);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Syllabus s SET s.topicGenerationOwner = NULL, s.topicGenerationLeaseUntil = NULL " +
+           "WHERE s.id = :id AND s.topicGenerationOwner = :owner")
+    int releaseTopicGenerationLease(@Param("id") Long id, @Param("owner") String owner);
+    
+    @Query("SELECT s.topicsGeneratedAt FROM Syllabus s WHERE s.id = :id")
+    Optional<LocalDateTime> findTopicsGeneratedAt(@Param("id") Long id);
 }
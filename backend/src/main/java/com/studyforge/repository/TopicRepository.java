@@ -2,12 +2,18 @@ package com.studyforge.repository;
 
 import com.studyforge.model.Topic;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface TopicRepository extends JpaRepository<Topic, Long> {
     List<Topic> findBySyllabusId(Long syllabusId);
     List<Topic> findBySyllabusIdOrderByOrderIndexAsc(Long syllabusId);
+
+    @Query("SELECT MIN(t.deadline) FROM Topic t WHERE t.syllabus.id = :syllabusId")
+    LocalDateTime findEarliestDeadline(@Param("syllabusId") Long syllabusId);
 }
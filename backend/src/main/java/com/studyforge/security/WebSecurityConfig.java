@@ -4,6 +4,7 @@ import com.studyforge.config.CorsConfig;
 import com.studyforge.security.jwt.AuthEntryPointJwt;
 import com.studyforge.security.jwt.AuthTokenFilter;
 import com.studyforge.security.services.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -69,8 +70,10 @@ public class WebSecurityConfig {
             .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> 
-                // Public endpoints that don't require authentication
-                auth.requestMatchers("/auth/**").permitAll()
+                // Async dispatches (e.g. closing an SSE stream) belong to a request that was already authorized
+                auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                    // Public endpoints that don't require authentication
+                    .requestMatchers("/auth/**").permitAll()
                     .requestMatchers("/test/**").permitAll()
                     // Required for debugging and development
                     .requestMatchers("/error").permitAll()
@@ -1,8 +1,10 @@
 package com.studyforge.service;
 
+import com.studyforge.dto.AssignmentAttemptDto;
 import com.studyforge.model.Assignment;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface AssignmentService {
     Assignment createAssignment(Assignment assignment, Long topicId);
@@ -11,5 +13,9 @@ public interface AssignmentService {
     Assignment updateAssignment(Long id, Assignment assignmentDetails);
     void deleteAssignment(Long id);
     List<Assignment> generateAssignmentsForTopic(Long topicId);
-    void evaluateAssignment(Long id, List<Long> questionIds, List<String> userAnswers);
+    List<Assignment> getOrGenerateAssignments(Long topicId, Assignment.DifficultyLevel level, Long userId);
+    AssignmentAttemptDto evaluateAssignment(Long id, Long userId, List<Long> questionIds, List<String> userAnswers);
+    Optional<AssignmentAttemptDto> getLatestAttempt(Long assignmentId, Long userId);
+    List<AssignmentAttemptDto> getAttempts(Long assignmentId, Long userId);
+    List<AssignmentAttemptDto> getLatestAttemptsByTopic(Long topicId, Long userId);
 }
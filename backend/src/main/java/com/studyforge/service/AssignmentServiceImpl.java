@@ -1,19 +1,44 @@
 package com.studyforge.service;
 
+import com.studyforge.dto.AssignmentAttemptDto;
 import com.studyforge.model.Assignment;
+import com.studyforge.model.AssignmentAttempt;
+import com.studyforge.model.AttemptAnswer;
 import com.studyforge.model.Question;
 import com.studyforge.model.QuestionOption;
+import com.studyforge.model.User;
+import com.studyforge.repository.AssignmentAttemptRepository;
 import com.studyforge.repository.AssignmentRepository;
+import com.studyforge.repository.AttemptAnswerRepository;
+import com.studyforge.model.Topic;
 import com.studyforge.repository.TopicRepository;
+import com.studyforge.service.grading.AnswerKey;
+import com.studyforge.service.grading.AnswerKeyCache;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import jakarta.persistence.EntityNotFoundException;
 
 @Service
 public class AssignmentServiceImpl implements AssignmentService {
+    private static final Logger logger = LoggerFactory.getLogger(AssignmentServiceImpl.class);
 
     @Value("${openai.api.key}")
     private String openaiApiKey;
@@ -23,10 +48,50 @@ public class AssignmentServiceImpl implements AssignmentService {
 
     private final AssignmentRepository assignmentRepository;
     private final TopicRepository topicRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AssignmentAttemptRepository assignmentAttemptRepository;
+    private final AttemptAnswerRepository attemptAnswerRepository;
+    private final AnswerKeyCache answerKeyCache;
+    private final EntityManager entityManager;
+    // Generates the difficulty levels of a topic side by side; bounded, so a burst of requests queues here
+    private final ExecutorService generationExecutor;
+    // Level generations in flight on this node, keyed by topic and level; concurrent requests join them
+    private final Map<String, CompletableFuture<List<Assignment>>> levelGenerations = new ConcurrentHashMap<>();
 
-    public AssignmentServiceImpl(AssignmentRepository assignmentRepository, TopicRepository topicRepository) {
+    // Recent scores looked at to guess which level a student opens next
+    @Value("${studyforge.assignments.prefetch.recent-scores:5}")
+    private int prefetchRecentScores;
+
+    // Students averaging below this share of the points are expected to step down a level, others up
+    @Value("${studyforge.assignments.prefetch.step-down-below:0.5}")
+    private double prefetchStepDownBelow;
+
+    @Value("${studyforge.assignments.prefetch.enabled:true}")
+    private boolean prefetchEnabled;
+
+    public AssignmentServiceImpl(AssignmentRepository assignmentRepository, TopicRepository topicRepository,
+                                 AssignmentAttemptRepository assignmentAttemptRepository,
+                                 AttemptAnswerRepository attemptAnswerRepository, TransactionTemplate transactionTemplate,
+                                 AnswerKeyCache answerKeyCache, EntityManager entityManager,
+                                 @Value("${studyforge.assignments.generation.parallelism:4}") int generationParallelism) {
         this.assignmentRepository = assignmentRepository;
         this.topicRepository = topicRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.assignmentAttemptRepository = assignmentAttemptRepository;
+        this.attemptAnswerRepository = attemptAnswerRepository;
+        this.answerKeyCache = answerKeyCache;
+        this.entityManager = entityManager;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.generationExecutor = Executors.newFixedThreadPool(generationParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "assignment-generation-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        generationExecutor.shutdownNow();
     }
 
     @Override
@@ -60,7 +125,9 @@ public class AssignmentServiceImpl implements AssignmentService {
                     assignment.setDifficultyLevel(assignmentDetails.getDifficultyLevel());
                     // The assignmentDetails already has questions as a Set<Question> so this is fine
                     assignment.setQuestions(assignmentDetails.getQuestions());
-                    return assignmentRepository.save(assignment);
+                    Assignment saved = assignmentRepository.save(assignment);
+                    answerKeyCache.invalidate(id);
+                    return saved;
                 })
                 .orElseThrow(() -> new EntityNotFoundException("Assignment not found with id: " + id));
     }
@@ -70,40 +137,166 @@ public class AssignmentServiceImpl implements AssignmentService {
         Assignment assignment = assignmentRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Assignment not found with id: " + id));
         assignmentRepository.delete(assignment);
+        answerKeyCache.invalidate(id);
     }
 
+    /**
+     * Generate one assignment for each difficulty level the topic does not have yet, and return the
+     * assignments of every level. The missing levels are generated concurrently, each through the
+     * same single-flight as {@link #getOrGenerateAssignments}, so a level that is already being
+     * generated lazily, or by an earlier call, is joined rather than generated again.
+     *
+     * A level that fails is left out and logged; the call only fails if every missing level did.
+     */
     @Override
     public List<Assignment> generateAssignmentsForTopic(Long topicId) {
+        Topic topic = topicRepository.findById(topicId)
+                .orElseThrow(() -> new EntityNotFoundException("Topic not found with id: " + topicId));
+        
+        Map<Assignment.DifficultyLevel, List<Assignment>> existing = assignmentRepository.findByTopicId(topicId).stream()
+                .collect(Collectors.groupingBy(Assignment::getDifficultyLevel,
+                        () -> new EnumMap<>(Assignment.DifficultyLevel.class), Collectors.toList()));
+        Map<Assignment.DifficultyLevel, CompletableFuture<List<Assignment>>> generations = new EnumMap<>(Assignment.DifficultyLevel.class);
+        for (Assignment.DifficultyLevel level : Assignment.DifficultyLevel.values()) {
+            if (!existing.containsKey(level)) {
+                generations.put(level, CompletableFuture.supplyAsync(() -> generateLevelOnce(topic, level), generationExecutor));
+            }
+        }
+        
+        List<Assignment> assignments = new ArrayList<>();
+        existing.values().forEach(assignments::addAll);
+        RuntimeException firstFailure = null;
+        for (Map.Entry<Assignment.DifficultyLevel, CompletableFuture<List<Assignment>>> generation : generations.entrySet()) {
+            try {
+                assignments.addAll(generation.getValue().join());
+            } catch (CompletionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+                logger.warn("Failed to generate the {} assignment for topic {}: {}",
+                        generation.getKey(), topicId, cause.getMessage());
+                if (firstFailure == null) {
+                    firstFailure = cause;
+                }
+            }
+        }
+        if (assignments.isEmpty() && firstFailure != null) {
+            throw firstFailure;
+        }
+        return assignments;
+    }
+    
+    /**
+     * The assignments of one difficulty level, generating the level the first time it is asked for.
+     * Afterwards the level the student most likely opens next is generated in the background.
+     */
+    @Override
+    public List<Assignment> getOrGenerateAssignments(Long topicId, Assignment.DifficultyLevel level, Long userId) {
+        Topic topic = topicRepository.findById(topicId)
+                .orElseThrow(() -> new EntityNotFoundException("Topic not found with id: " + topicId));
+        List<Assignment> assignments = assignmentRepository.findByTopicIdAndDifficultyLevel(topicId, level);
+        if (assignments.isEmpty()) {
+            assignments = generateLevelOnce(topic, level);
+        }
+        if (prefetchEnabled) {
+            prefetchNextLevel(topic, level, userId);
+        }
+        return assignments;
+    }
+    
+    private List<Assignment> generateLevelOnce(Topic topic, Assignment.DifficultyLevel level) {
+        String key = topic.getId() + ":" + level;
+        CompletableFuture<List<Assignment>> generation = new CompletableFuture<>();
+        CompletableFuture<List<Assignment>> inFlight = levelGenerations.putIfAbsent(key, generation);
+        if (inFlight != null) {
+            return awaitAssignments(inFlight);
+        }
+        
+        try {
+            // The previous generation may have finished between the caller's lookup and the claim
+            List<Assignment> existing = assignmentRepository.findByTopicIdAndDifficultyLevel(topic.getId(), level);
+            if (!existing.isEmpty()) {
+                generation.complete(existing);
+            } else {
+                Assignment assignment = buildAssignment(topic, level);
+                Assignment saved = transactionTemplate.execute(status -> assignmentRepository.save(assignment));
+                generation.complete(List.of(saved));
+            }
+        } catch (RuntimeException e) {
+            generation.completeExceptionally(e);
+        } finally {
+            levelGenerations.remove(key, generation);
+        }
+        return awaitAssignments(generation);
+    }
+    
+    /**
+     * Generate the level {@code userId} likely opens next in the background. Choosing it takes
+     * queries of its own, so the whole decision runs off the request thread too.
+     */
+    private void prefetchNextLevel(Topic topic, Assignment.DifficultyLevel opened, Long userId) {
+        CompletableFuture.runAsync(() -> {
+            Assignment.DifficultyLevel next = nextLikelyLevel(userId, opened);
+            if (next == null || levelGenerations.containsKey(topic.getId() + ":" + next)
+                    || assignmentRepository.existsByTopicIdAndDifficultyLevel(topic.getId(), next)) {
+                return;
+            }
+            generateLevelOnce(topic, next);
+        }, generationExecutor).exceptionally(e -> {
+            logger.warn("Failed to prefetch the assignment after {} for topic {}: {}",
+                    opened, topic.getId(), e.getMessage());
+            return null;
+        });
+    }
+    
+    /**
+     * The neighbouring level the student is most likely to open after {@code opened}: one level down
+     * if their recent scores are low, otherwise one level up. Without scores, students move up.
+     */
+    private Assignment.DifficultyLevel nextLikelyLevel(Long userId, Assignment.DifficultyLevel opened) {
+        Assignment.DifficultyLevel[] levels = Assignment.DifficultyLevel.values();
+        List<Double> scores = userId != null
+                ? assignmentAttemptRepository.findRecentScores(userId, PageRequest.of(0, prefetchRecentScores))
+                : List.of();
+        double average = scores.stream().mapToDouble(Double::doubleValue).average().orElse(1.0);
+        
+        int step = average < prefetchStepDownBelow ? -1 : 1;
+        int next = opened.ordinal() + step;
+        if (next < 0 || next >= levels.length) {
+            // At the easiest or hardest level the only neighbour is the other way
+            next = opened.ordinal() - step;
+        }
+        return next >= 0 && next < levels.length ? levels[next] : null;
+    }
+    
+    private List<Assignment> awaitAssignments(CompletableFuture<List<Assignment>> generation) {
+        try {
+            return generation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+    
+    private Assignment buildAssignment(Topic topic, Assignment.DifficultyLevel level) {
         // This is a placeholder for AI-powered assignment generation
         // The actual implementation would use OpenAI's API to generate questions
         // based on the topic content
+        Assignment assignment = new Assignment();
+        assignment.setTitle("Auto-generated " + level + " assignment for " + topic.getTitle());
+        assignment.setContent("This is an auto-generated assignment to test your knowledge of " + topic.getTitle());
+        assignment.setDifficultyLevel(level);
+        assignment.setTopic(topic);
+        assignment.setCreatedAt(LocalDateTime.now());
         
-        return topicRepository.findById(topicId)
-                .map(topic -> {
-                    List<Assignment> assignments = new ArrayList<>();
-                    
-                    // Generate assignments for each difficulty level
-                    for (Assignment.DifficultyLevel level : Assignment.DifficultyLevel.values()) {
-                        Assignment assignment = new Assignment();
-                        assignment.setTitle("Auto-generated " + level + " assignment for " + topic.getTitle());
-                        assignment.setContent("This is an auto-generated assignment to test your knowledge of " + topic.getTitle());
-                        assignment.setDifficultyLevel(level);
-                        assignment.setTopic(topic);
-                        assignment.setCreatedAt(LocalDateTime.now());
-                        
-                        // Generate sample questions
-                        Set<Question> questions = generateQuestionsForTopic(topic, level, 5);
-                        assignment.setQuestions(questions);
-                        
-                        assignments.add(assignmentRepository.save(assignment));
-                    }
-                    
-                    return assignments;
-                })
-                .orElseThrow(() -> new EntityNotFoundException("Topic not found with id: " + topicId));
+        // Generate sample questions
+        Set<Question> questions = generateQuestionsForTopic(topic, level, 5);
+        questions.forEach(question -> question.setAssignment(assignment));
+        assignment.setQuestions(questions);
+        return assignment;
     }
 
-    private Set<Question> generateQuestionsForTopic(com.studyforge.model.Topic topic, Assignment.DifficultyLevel level, int count) {
+    private Set<Question> generateQuestionsForTopic(Topic topic, Assignment.DifficultyLevel level, int count) {
         // This is a placeholder implementation
         // The actual implementation would use OpenAI's API to generate questions
         
@@ -133,21 +326,85 @@ public class AssignmentServiceImpl implements AssignmentService {
         return questions;
     }
 
+    /**
+     * Grade a submission against the assignment's cached answer key and record it as a new attempt
+     * of the user. The assignment and its questions are only read, so any number of students can
+     * submit the same assignment at once; the attempt and its answers are inserted in one
+     * transaction as a few JDBC batches. The key may outlive an assignment deleted on another
+     * node, in which case the attempt's assignment foreign key rejects the insert and the
+     * assignment is reported as not found; any other violation is passed on as it is.
+     */
     @Override
-    public void evaluateAssignment(Long id, List<Long> questionIds, List<String> userAnswers) {
-        // This method would evaluate user answers against correct answers
-        // and update the assignment score
-        
-        Assignment assignment = assignmentRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Assignment not found with id: " + id));
-        
-        // This is a placeholder implementation
-        // In a real implementation, we would compare user answers with correct answers
-        // and calculate a score
+    public AssignmentAttemptDto evaluateAssignment(Long id, Long userId, List<Long> questionIds, List<String> userAnswers) {
+        AnswerKey.Result result = answerKeyCache.get(id).grade(questionIds, userAnswers);
         
-        // For now, we'll just update the completion status
-        assignment.setIsCompleted(true);
-        assignment.setUpdatedAt(LocalDateTime.now());
-        assignmentRepository.save(assignment);
+        try {
+            return transactionTemplate.execute(status -> {
+                AssignmentAttempt attempt = new AssignmentAttempt();
+                attempt.setUser(entityManager.getReference(User.class, userId));
+                attempt.setAssignment(entityManager.getReference(Assignment.class, id));
+                attempt.setEarnedPoints(result.earnedPoints());
+                attempt.setMaxPoints(result.maxPoints());
+                AssignmentAttempt saved = assignmentAttemptRepository.save(attempt);
+                
+                List<AttemptAnswer> answers = new ArrayList<>();
+                for (AnswerKey.QuestionResult question : result.questions()) {
+                    AttemptAnswer answer = new AttemptAnswer();
+                    answer.setAttempt(saved);
+                    answer.setQuestion(entityManager.getReference(Question.class, question.questionId()));
+                    answer.setAnswer(truncate(question.answer()));
+                    answer.setIsCorrect(question.correct());
+                    answers.add(answer);
+                }
+                return new AssignmentAttemptDto(saved, attemptAnswerRepository.saveAll(answers));
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (!violates(e, AssignmentAttempt.ASSIGNMENT_FOREIGN_KEY)) {
+                throw e;
+            }
+            answerKeyCache.invalidate(id);
+            throw new EntityNotFoundException("Assignment not found with id: " + id);
+        }
+    }
+    
+    private static boolean violates(DataIntegrityViolationException e, String constraintName) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return constraintName.equalsIgnoreCase(violation.getConstraintName());
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public Optional<AssignmentAttemptDto> getLatestAttempt(Long assignmentId, Long userId) {
+        return assignmentAttemptRepository.findFirstByUserIdAndAssignmentIdOrderBySubmittedAtDescIdDesc(userId, assignmentId)
+                .map(attempt -> new AssignmentAttemptDto(attempt,
+                        attemptAnswerRepository.findByAttemptIdOrderByQuestionId(attempt.getId())));
+    }
+    
+    @Override
+    public List<AssignmentAttemptDto> getAttempts(Long assignmentId, Long userId) {
+        return assignmentAttemptRepository.findByUserIdAndAssignmentIdOrderBySubmittedAtDescIdDesc(userId, assignmentId)
+                .stream()
+                .map(AssignmentAttemptDto::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The user's latest attempt at each assignment of the topic they have submitted, without the
+     * answers; assignments they have not attempted are left out.
+     */
+    @Override
+    public List<AssignmentAttemptDto> getLatestAttemptsByTopic(Long topicId, Long userId) {
+        Map<Long, AssignmentAttemptDto> latest = new LinkedHashMap<>();
+        for (AssignmentAttempt attempt : assignmentAttemptRepository.findByUserIdAndTopicId(userId, topicId)) {
+            latest.putIfAbsent(attempt.getAssignment().getId(), new AssignmentAttemptDto(attempt));
+        }
+        return new ArrayList<>(latest.values());
+    }
+    
+    private String truncate(String answer) {
+        return answer != null && answer.length() > 2000 ? answer.substring(0, 2000) : answer;
     }
 }
@@ -0,0 +1,193 @@
+package com.studyforge.service;
+
+import com.studyforge.model.Syllabus;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Extracts plain text from stored syllabus documents.
+ *
+ * Documents are always read from a file on disk rather than from an in-memory buffer, so PDFBox
+ * and POI can page through them instead of holding the whole upload on the heap. Text is written
+ * straight to the supplied {@link Writer} as it is produced.
+ *
+ * Large PDFs are split into one page range per worker of a bounded fork-join pool; the ranges are
+ * stripped in parallel and stitched back together in page order. Every PDF page ends with a form feed so later stages
+ * can tell running headers and footers from body text.
+ */
+@Component
+public class DocumentTextExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentTextExtractor.class);
+
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    public static final String PAGE_BREAK = "\f";
+
+    @Value("${studyforge.extraction.pdf-max-main-memory-bytes:4194304}")
+    private long pdfMaxMainMemoryBytes;
+
+    // PDFs with fewer pages than this are stripped on the calling thread
+    @Value("${studyforge.extraction.parallel-page-threshold:40}")
+    private int parallelPageThreshold;
+
+    // Smallest range worth parsing the file again for
+    @Value("${studyforge.extraction.pages-per-range:20}")
+    private int pagesPerRange;
+
+    private final ForkJoinPool extractionPool;
+
+    public DocumentTextExtractor(
+            @Value("${studyforge.extraction.parallelism:0}") int parallelism) {
+        // Default to the available cores, capped so extraction cannot take over the whole machine
+        int threads = parallelism > 0 ? parallelism : Math.min(Runtime.getRuntime().availableProcessors(), 4);
+        this.extractionPool = new ForkJoinPool(threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        extractionPool.shutdownNow();
+    }
+
+    /**
+     * Extract the text of the document at {@code source} into {@code target}.
+     *
+     * @param source the stored document
+     * @param documentType the detected type of the document
+     * @param target the writer receiving the extracted text
+     */
+    public void extractText(Path source, Syllabus.DocumentType documentType, Writer target) throws IOException {
+        if (documentType == Syllabus.DocumentType.PDF) {
+            extractPdfText(source, target);
+        } else if (documentType == Syllabus.DocumentType.WORD) {
+            // Opening the package from a file lets POI read zip entries lazily instead of buffering the stream
+            try (XWPFDocument document = openWordDocument(source);
+                 XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
+                target.write(extractor.getText());
+            }
+        } else if (documentType == Syllabus.DocumentType.TEXT) {
+            // InputStreamReader substitutes malformed input instead of failing on non UTF-8 files
+            try (Reader reader = new InputStreamReader(Files.newInputStream(source), StandardCharsets.UTF_8)) {
+                char[] buffer = new char[COPY_BUFFER_SIZE];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    target.write(buffer, 0, read);
+                }
+            }
+        }
+        target.flush();
+    }
+
+    private void extractPdfText(Path source, Writer target) throws IOException {
+        long start = System.nanoTime();
+        int pageCount;
+        boolean parallel;
+        try (PDDocument document = loadPdf(source)) {
+            pageCount = document.getNumberOfPages();
+            parallel = pageCount >= parallelPageThreshold && extractionPool.getParallelism() > 1;
+            if (parallel) {
+                extractPdfTextInRanges(source, document, pageCount, target);
+            } else {
+                PDFTextStripper pdfStripper = newPdfStripper();
+                pdfStripper.writeText(document, target);
+            }
+        }
+        logger.debug("Extracted text from {} PDF pages in {} ms ({})", pageCount,
+                (System.nanoTime() - start) / 1_000_000, parallel ? "parallel" : "sequential");
+    }
+
+    /**
+     * Strip page ranges concurrently and write them back in page order. PDDocument is not thread-safe,
+     * so the pages are cut into one contiguous range per worker and every worker parses the stored
+     * file once. The calling thread strips the first range from the document it already has open.
+     */
+    private void extractPdfTextInRanges(Path source, PDDocument document, int pageCount, Writer target)
+            throws IOException {
+        int maxRanges = (pageCount + pagesPerRange - 1) / pagesPerRange;
+        int rangeCount = Math.max(1, Math.min(extractionPool.getParallelism(), maxRanges));
+        int rangeSize = (pageCount + rangeCount - 1) / rangeCount;
+
+        List<ForkJoinTask<String>> ranges = new ArrayList<>();
+        for (int startPage = 1 + rangeSize; startPage <= pageCount; startPage += rangeSize) {
+            int firstPage = startPage;
+            int lastPage = Math.min(startPage + rangeSize - 1, pageCount);
+            ranges.add(extractionPool.submit(() -> {
+                try (PDDocument rangeDocument = loadPdf(source)) {
+                    return extractPdfPageRange(rangeDocument, firstPage, lastPage);
+                }
+            }));
+        }
+
+        try {
+            target.write(extractPdfPageRange(document, 1, Math.min(rangeSize, pageCount)));
+            for (ForkJoinTask<String> range : ranges) {
+                target.write(range.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting PDF text", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to extract PDF page range: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            ranges.forEach(range -> range.cancel(true));
+        }
+    }
+
+    private String extractPdfPageRange(PDDocument document, int firstPage, int lastPage) throws IOException {
+        PDFTextStripper pdfStripper = newPdfStripper();
+        pdfStripper.setStartPage(firstPage);
+        pdfStripper.setEndPage(lastPage);
+        return pdfStripper.getText(document);
+    }
+
+    private PDFTextStripper newPdfStripper() throws IOException {
+        PDFTextStripper pdfStripper = new PDFTextStripper();
+        pdfStripper.setPageEnd(PAGE_BREAK);
+        return pdfStripper;
+    }
+
+    private PDDocument loadPdf(Path source) throws IOException {
+        // Keep at most pdfMaxMainMemoryBytes of the parsed document in memory, spill the rest to temp files
+        return PDDocument.load(source.toFile(), MemoryUsageSetting.setupMixed(pdfMaxMainMemoryBytes));
+    }
+
+    private XWPFDocument openWordDocument(Path source) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(source.toFile(), PackageAccess.READ);
+        } catch (InvalidFormatException e) {
+            throw new IOException("Invalid Word document: " + e.getMessage(), e);
+        }
+        try {
+            // The document takes ownership of the package and reverts it on close
+            return new XWPFDocument(pkg);
+        } catch (IOException | RuntimeException e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.studyforge.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studyforge.dto.TopicDto;
+import com.studyforge.model.ExtractedDocument;
+import com.studyforge.model.Syllabus;
+import com.studyforge.repository.ExtractedDocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content-addressed store for uploaded syllabus documents and their extracted text.
+ *
+ * Uploads are hashed with SHA-256 while they are streamed to disk. The bytes are kept once under
+ * {@code uploads/blobs/<hash>} and the text is extracted once into {@link ExtractedDocument};
+ * later uploads of the same file reuse both. The document's outline is read in the same pass and
+ * kept with the text, so topic generation never has to parse the original file again.
+ */
+@Component
+public class ExtractedTextStore {
+    private static final Logger logger = LoggerFactory.getLogger(ExtractedTextStore.class);
+
+    private final ExtractedDocumentRepository extractedDocumentRepository;
+    private final DocumentTextExtractor documentTextExtractor;
+    private final OutlineExtractor outlineExtractor;
+    private final ObjectMapper objectMapper;
+
+    // Extractions currently running on this node, so concurrent identical uploads share one
+    private final Map<String, CompletableFuture<ExtractedDocument>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${studyforge.storage.upload-dir:uploads}")
+    private String uploadDir;
+
+    public ExtractedTextStore(ExtractedDocumentRepository extractedDocumentRepository,
+                              DocumentTextExtractor documentTextExtractor, OutlineExtractor outlineExtractor,
+                              ObjectMapper objectMapper) {
+        this.extractedDocumentRepository = extractedDocumentRepository;
+        this.documentTextExtractor = documentTextExtractor;
+        this.outlineExtractor = outlineExtractor;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Stream an upload to its content-addressed blob without extracting it. This only costs the
+     * disk write, so it can run on a request thread ahead of {@link #extract(StoredBlob)}.
+     */
+    public StoredBlob storeBlob(InputStream in, Syllabus.DocumentType documentType) throws IOException {
+        Path blobDir = blobDirectory();
+        Path tempPath = blobDir.resolve(UUID.randomUUID() + ".upload");
+
+        String contentHash;
+        long sizeBytes;
+        try (DigestInputStream digestIn = new DigestInputStream(in, sha256())) {
+            sizeBytes = Files.copy(digestIn, tempPath, StandardCopyOption.REPLACE_EXISTING);
+            contentHash = HexFormat.of().formatHex(digestIn.getMessageDigest().digest());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+
+        Path blobPath = blobDir.resolve(contentHash);
+        try {
+            if (!Files.exists(blobPath)) {
+                // Identical bytes written concurrently are interchangeable, so replacing is harmless
+                Files.move(tempPath, blobPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+
+        return new StoredBlob(contentHash, blobPath.toString(), sizeBytes, documentType);
+    }
+
+    /**
+     * Extract the text of a stored blob unless identical bytes were extracted before.
+     */
+    public ExtractedDocument extract(StoredBlob blob) throws IOException {
+        return findOrExtract(blob.contentHash(), Paths.get(blob.storagePath()), blob.sizeBytes(), blob.documentType());
+    }
+
+    /**
+     * Bring a document stored before content addressing into the store, hashing the file in place.
+     */
+    public ExtractedDocument storeExisting(Path filePath, Syllabus.DocumentType documentType) throws IOException {
+        String contentHash;
+        try (DigestInputStream digestIn = new DigestInputStream(Files.newInputStream(filePath), sha256())) {
+            digestIn.transferTo(OutputStream.nullOutputStream());
+            contentHash = HexFormat.of().formatHex(digestIn.getMessageDigest().digest());
+        }
+        return findOrExtract(contentHash, filePath, Files.size(filePath), documentType);
+    }
+
+    /**
+     * @return the extracted document with the given content hash, if it was stored
+     */
+    public Optional<ExtractedDocument> find(String contentHash) {
+        return extractedDocumentRepository.findByContentHash(contentHash);
+    }
+
+    /**
+     * The topics of the document's own outline, if it is clear enough to skip the LLM. Documents
+     * extracted before outlines were stored have theirs read once here.
+     */
+    public Optional<List<TopicDto>> outlineTopics(ExtractedDocument document) {
+        if (!outlineExtractor.isEnabled()) {
+            return Optional.empty();
+        }
+        if (document.getOutlineTopics() == null) {
+            document.setOutlineTopics(readOutline(Paths.get(document.getStoragePath()), document.getDocumentType()));
+            extractedDocumentRepository.save(document);
+        }
+        try {
+            List<TopicDto> topics = objectMapper.readValue(document.getOutlineTopics(), new TypeReference<>() {
+            });
+            return topics.isEmpty() ? Optional.empty() : Optional.of(topics);
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring unreadable outline of document {}: {}", document.getContentHash(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private ExtractedDocument findOrExtract(String contentHash, Path storagePath, long sizeBytes,
+                                            Syllabus.DocumentType documentType) throws IOException {
+        Optional<ExtractedDocument> existing = extractedDocumentRepository.findByContentHash(contentHash);
+        if (existing.isPresent()) {
+            logger.debug("Reusing extracted text for document {}", contentHash);
+            return existing.get();
+        }
+
+        CompletableFuture<ExtractedDocument> created = new CompletableFuture<>();
+        CompletableFuture<ExtractedDocument> running = inFlight.putIfAbsent(contentHash, created);
+        if (running != null) {
+            return await(running);
+        }
+
+        try {
+            created.complete(extractAndSave(contentHash, storagePath, sizeBytes, documentType));
+        } catch (IOException | RuntimeException e) {
+            created.completeExceptionally(e);
+        } finally {
+            inFlight.remove(contentHash, created);
+        }
+        return await(created);
+    }
+
+    private ExtractedDocument extractAndSave(String contentHash, Path storagePath, long sizeBytes,
+                                             Syllabus.DocumentType documentType) throws IOException {
+        // The parse stays bounded by the extractor's memory setting, but the extracted text itself is
+        // held in memory once, since it is stored as a single column
+        StringWriter text = new StringWriter();
+        documentTextExtractor.extractText(storagePath, documentType, text);
+
+        ExtractedDocument document = new ExtractedDocument();
+        document.setContentHash(contentHash);
+        document.setDocumentType(documentType);
+        document.setStoragePath(storagePath.toString());
+        document.setSizeBytes(sizeBytes);
+        document.setText(text.toString());
+        document.setOutlineTopics(readOutline(storagePath, documentType));
+
+        try {
+            logger.info("Extracted {} characters from new document {}", document.getText().length(), contentHash);
+            return extractedDocumentRepository.save(document);
+        } catch (DataIntegrityViolationException e) {
+            // Another node stored the same document first
+            return extractedDocumentRepository.findByContentHash(contentHash).orElseThrow(() -> e);
+        }
+    }
+
+    private String readOutline(Path storagePath, Syllabus.DocumentType documentType) {
+        List<TopicDto> topics = outlineExtractor.extractTopics(storagePath, documentType).orElse(List.of());
+        try {
+            return objectMapper.writeValueAsString(topics);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize outline topics", e);
+        }
+    }
+
+    private ExtractedDocument await(CompletableFuture<ExtractedDocument> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private Path blobDirectory() throws IOException {
+        Path blobDir = Paths.get(uploadDir, "blobs");
+        if (!Files.exists(blobDir)) {
+            Files.createDirectories(blobDir);
+        }
+        return blobDir;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * An upload written to the store whose text may not have been extracted yet.
+     */
+    public record StoredBlob(String contentHash, String storagePath, long sizeBytes,
+                             Syllabus.DocumentType documentType) {
+    }
+}
@@ -0,0 +1,243 @@
+package com.studyforge.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studyforge.dto.DocumentJobPayload;
+import com.studyforge.dto.SyllabusDto;
+import com.studyforge.dto.TopicDto;
+import com.studyforge.model.ProcessingJob;
+import com.studyforge.model.Syllabus;
+import com.studyforge.model.Topic;
+import com.studyforge.repository.ProcessingJobRepository;
+import com.studyforge.service.llm.LlmRateLimitException;
+import com.studyforge.service.llm.LlmRequestContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Claims queued {@link ProcessingJob}s from the database and runs them on a bounded worker pool.
+ *
+ * Each node only claims as many jobs as it has idle workers, so the backlog stays in the table where
+ * any node can pick it up. A claimed job carries a lease that its node renews while the job runs;
+ * if the node dies, the job is requeued once the lease expires. A worker only writes its outcome
+ * while its claim still holds the job, so a job that was requeued and claimed again in the meantime
+ * keeps the state of its newer run.
+ *
+ * Jobs are claimed most urgent first: NORMAL before BACKGROUND, then the earliest due date. A
+ * BACKGROUND job that has waited for the aging interval competes on its due date like any other,
+ * so bulk work is delayed under load but never starved. LLM calls made by jobs queue for quota
+ * behind interactive requests. Time from queueing to claim is recorded as jobs.queue.wait.
+ */
+@Component
+public class JobRunner {
+    private static final Logger logger = LoggerFactory.getLogger(JobRunner.class);
+
+    private final ProcessingJobRepository processingJobRepository;
+    private final SyllabusService syllabusService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Batch jobs are submitted by the TopicBatchRunner instead
+    private static final List<String> JOB_TYPES = List.of(
+            ProcessingJob.JobType.PROCESS_DOCUMENT.name(), ProcessingJob.JobType.GENERATE_TOPICS.name());
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final int workerThreads;
+    private final ExecutorService workers;
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+    // Jobs running on this node, by id, with the attempt number of their claim
+    private final Map<Long, Integer> runningJobs = new ConcurrentHashMap<>();
+
+    @Value("${studyforge.jobs.lease-minutes:15}")
+    private long leaseMinutes;
+
+    @Value("${studyforge.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    // How long a BACKGROUND job waits behind NORMAL jobs before it is ordered by due date alone
+    @Value("${studyforge.jobs.background-aging-minutes:30}")
+    private long backgroundAgingMinutes;
+
+    public JobRunner(ProcessingJobRepository processingJobRepository, SyllabusService syllabusService,
+                     ObjectMapper objectMapper, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                     @Value("${studyforge.jobs.worker-threads:4}") int workerThreads) {
+        this.processingJobRepository = processingJobRepository;
+        this.syllabusService = syllabusService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.workerThreads = workerThreads;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "job-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Running jobs are requeued by another node once their lease expires
+        workers.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${studyforge.jobs.poll-interval-ms:500}")
+    public void poll() {
+        int idle = workerThreads - busyWorkers.get();
+        if (idle <= 0) {
+            return;
+        }
+
+        List<ProcessingJob> claimed = transactionTemplate.execute(status -> claim(idle));
+        for (ProcessingJob job : claimed) {
+            busyWorkers.incrementAndGet();
+            runningJobs.put(job.getId(), job.getAttempts());
+            workers.execute(() -> {
+                try {
+                    run(job);
+                } finally {
+                    runningJobs.remove(job.getId());
+                    busyWorkers.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * Extend the lease of every job still running on this node, so long jobs are not requeued while
+     * their worker is alive.
+     */
+    @Scheduled(fixedDelayString = "${studyforge.jobs.heartbeat-interval-ms:60000}")
+    public void renewLeases() {
+        if (runningJobs.isEmpty()) {
+            return;
+        }
+        LocalDateTime leaseExpiresAt = LocalDateTime.now().plusMinutes(leaseMinutes);
+        transactionTemplate.executeWithoutResult(status -> runningJobs.forEach((id, attempts) -> {
+            if (processingJobRepository.renewOwnedLease(id, nodeId, attempts,
+                    ProcessingJob.JobStatus.RUNNING, leaseExpiresAt) == 0) {
+                logger.warn("Job {} lost its lease; its outcome will be discarded", id);
+            }
+        }));
+    }
+
+    @Scheduled(fixedDelayString = "${studyforge.jobs.recovery-interval-ms:60000}")
+    public void recoverExpiredLeases() {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            int requeued = processingJobRepository.requeueExpired(ProcessingJob.JobStatus.QUEUED,
+                    ProcessingJob.JobStatus.RUNNING, now, maxAttempts);
+            int failed = processingJobRepository.failExpired(ProcessingJob.JobStatus.FAILED,
+                    ProcessingJob.JobStatus.RUNNING, now, maxAttempts);
+            if (requeued > 0 || failed > 0) {
+                logger.warn("Recovered abandoned jobs: {} requeued, {} failed", requeued, failed);
+            }
+        });
+    }
+
+    private List<ProcessingJob> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ProcessingJob> jobs = processingJobRepository.lockQueued(JOB_TYPES,
+                now.minusMinutes(backgroundAgingMinutes), limit);
+        for (ProcessingJob job : jobs) {
+            recordQueueWait(job, now);
+            job.setStatus(ProcessingJob.JobStatus.RUNNING);
+            job.setLockedBy(nodeId);
+            job.setLeaseExpiresAt(now.plusMinutes(leaseMinutes));
+            job.setStartedAt(now);
+            job.setAttempts(job.getAttempts() + 1);
+        }
+        return processingJobRepository.saveAll(jobs);
+    }
+
+    private void run(ProcessingJob job) {
+        logger.info("Running job {} ({})", job.getId(), job.getType());
+        try {
+            switch (job.getType()) {
+                case PROCESS_DOCUMENT -> {
+                    DocumentJobPayload payload = objectMapper.readValue(job.getPayload(), DocumentJobPayload.class);
+                    ExtractedTextStore.StoredBlob blob = new ExtractedTextStore.StoredBlob(payload.getContentHash(),
+                            payload.getStoragePath(), payload.getSizeBytes(), payload.getDocumentType());
+                    Syllabus syllabus = syllabusService.processStoredDocument(blob, payload.getTitle(),
+                            payload.getDescription(), payload.getUserId(), payload.getStartDate(), payload.getEndDate());
+                    job.setSyllabusId(syllabus.getId());
+                    job.setResult(objectMapper.writeValueAsString(new SyllabusDto(syllabus)));
+                }
+                case GENERATE_TOPICS -> {
+                    List<Topic> topics = syllabusService.generateTopicsFromSyllabus(job.getSyllabusId(),
+                            llmPriority(job));
+                    List<TopicDto> topicDtos = topics.stream()
+                            .map(TopicDto::new)
+                            .collect(Collectors.toList());
+                    job.setResult(objectMapper.writeValueAsString(topicDtos));
+                }
+                case GENERATE_TOPICS_BATCH -> throw new IllegalStateException("Batch jobs are not run by workers");
+            }
+            job.setStatus(ProcessingJob.JobStatus.SUCCEEDED);
+        } catch (LlmRateLimitException e) {
+            if (job.getAttempts() < maxAttempts) {
+                // The limiter already held the job for its maximum queue time; try again on a later poll
+                logger.warn("Job {} is waiting for LLM quota, requeueing: {}", job.getId(), e.getMessage());
+                transactionTemplate.executeWithoutResult(status -> processingJobRepository.requeueOwned(job.getId(),
+                        nodeId, job.getAttempts(), ProcessingJob.JobStatus.RUNNING, ProcessingJob.JobStatus.QUEUED,
+                        LocalDateTime.now()));
+                return;
+            }
+            logger.error("Job {} failed", job.getId(), e);
+            job.setStatus(ProcessingJob.JobStatus.FAILED);
+            job.setErrorMessage(truncate(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Job {} failed", job.getId(), e);
+            job.setStatus(ProcessingJob.JobStatus.FAILED);
+            job.setErrorMessage(truncate(e.getMessage()));
+        }
+        int completed = transactionTemplate.execute(status -> processingJobRepository.completeOwned(job.getId(),
+                nodeId, job.getAttempts(), ProcessingJob.JobStatus.RUNNING, job.getStatus(), job.getSyllabusId(),
+                job.getResult(), job.getErrorMessage(), LocalDateTime.now()));
+        if (completed == 0) {
+            logger.warn("Job {} finished after losing its lease; discarding its {} outcome", job.getId(), job.getStatus());
+        }
+    }
+
+    private LlmRequestContext.Priority llmPriority(ProcessingJob job) {
+        return job.getPriority() == ProcessingJob.Priority.BACKGROUND
+                ? LlmRequestContext.Priority.BACKGROUND
+                : LlmRequestContext.Priority.QUEUED;
+    }
+
+    private void recordQueueWait(ProcessingJob job, LocalDateTime claimedAt) {
+        // Requeued jobs count from their first submission, which is the wait their user sees
+        ProcessingJob.Priority priority = job.getPriority() != null ? job.getPriority() : ProcessingJob.Priority.NORMAL;
+        Timer.builder("jobs.queue.wait")
+                .description("Time jobs spent queued before a worker claimed them")
+                .tags("type", job.getType().name().toLowerCase(), "priority", priority.name().toLowerCase())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(Duration.between(job.getCreatedAt(), claimedAt));
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 2000 ? message.substring(0, 2000) : message;
+    }
+}
@@ -0,0 +1,15 @@
+package com.studyforge.service;
+
+import com.studyforge.model.ProcessingJob;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface JobService {
+    ProcessingJob submitDocumentProcessing(MultipartFile file, String title, String description, Long userId,
+                                           LocalDateTime startDate, LocalDateTime endDate);
+    ProcessingJob submitTopicGeneration(Long syllabusId);
+    List<ProcessingJob> submitBatchTopicGeneration(List<Long> syllabusIds);
+    ProcessingJob getJob(Long id);
+}
@@ -0,0 +1,130 @@
+package com.studyforge.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studyforge.dto.DocumentJobPayload;
+import com.studyforge.model.ProcessingJob;
+import com.studyforge.model.Syllabus;
+import com.studyforge.repository.ProcessingJobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import jakarta.persistence.EntityNotFoundException;
+
+@Service
+public class JobServiceImpl implements JobService {
+
+    private static final List<ProcessingJob.JobStatus> ACTIVE_STATUSES =
+            List.of(ProcessingJob.JobStatus.QUEUED, ProcessingJob.JobStatus.RUNNING);
+
+    private final ProcessingJobRepository processingJobRepository;
+    private final SyllabusService syllabusService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${openai.batch.enabled:true}")
+    private boolean batchEnabled;
+
+    public JobServiceImpl(ProcessingJobRepository processingJobRepository, SyllabusService syllabusService,
+                          ObjectMapper objectMapper) {
+        this.processingJobRepository = processingJobRepository;
+        this.syllabusService = syllabusService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public ProcessingJob submitDocumentProcessing(MultipartFile file, String title, String description, Long userId,
+                                                  LocalDateTime startDate, LocalDateTime endDate) {
+        // The upload has to outlive this request, so it is stored now; parsing happens on a worker
+        ExtractedTextStore.StoredBlob blob = syllabusService.storeDocument(file);
+
+        DocumentJobPayload payload = new DocumentJobPayload();
+        payload.setContentHash(blob.contentHash());
+        payload.setStoragePath(blob.storagePath());
+        payload.setSizeBytes(blob.sizeBytes());
+        payload.setDocumentType(blob.documentType());
+        payload.setTitle(title);
+        payload.setDescription(description);
+        payload.setUserId(userId);
+        payload.setStartDate(startDate);
+        payload.setEndDate(endDate);
+
+        ProcessingJob job = new ProcessingJob();
+        job.setType(ProcessingJob.JobType.PROCESS_DOCUMENT);
+        job.setUserId(userId);
+        job.setDueAt(startDate);
+        job.setPayload(toJson(payload));
+        return processingJobRepository.save(job);
+    }
+
+    @Override
+    public ProcessingJob submitTopicGeneration(Long syllabusId) {
+        // Fail fast on unknown syllabi instead of queueing a job that can only fail
+        Syllabus syllabus = syllabusService.getSyllabus(syllabusId);
+
+        // Double clicks and retries join the generation that is already queued or running
+        Optional<ProcessingJob> active = processingJobRepository.findFirstBySyllabusIdAndTypeAndStatusInOrderByCreatedAtDesc(
+                syllabusId, ProcessingJob.JobType.GENERATE_TOPICS, ACTIVE_STATUSES);
+        if (active.isPresent()) {
+            return active.get();
+        }
+
+        ProcessingJob job = new ProcessingJob();
+        job.setType(ProcessingJob.JobType.GENERATE_TOPICS);
+        job.setSyllabusId(syllabusId);
+        job.setDueAt(syllabus.getStartDate());
+        return processingJobRepository.save(job);
+    }
+
+    /**
+     * Queue topic generation for many syllabi through the batch API. Syllabi with a generation
+     * already queued or running keep that job. Without batch support the jobs run as regular
+     * topic generation, behind the jobs users are waiting on.
+     */
+    @Override
+    public List<ProcessingJob> submitBatchTopicGeneration(List<Long> syllabusIds) {
+        ProcessingJob.JobType type = batchEnabled
+                ? ProcessingJob.JobType.GENERATE_TOPICS_BATCH
+                : ProcessingJob.JobType.GENERATE_TOPICS;
+        List<ProcessingJob> jobs = new ArrayList<>();
+        for (Long syllabusId : syllabusIds) {
+            Syllabus syllabus = syllabusService.getSyllabus(syllabusId);
+            Optional<ProcessingJob> active = findActiveTopicGeneration(syllabusId, ProcessingJob.JobType.GENERATE_TOPICS_BATCH)
+                    .or(() -> findActiveTopicGeneration(syllabusId, ProcessingJob.JobType.GENERATE_TOPICS));
+            if (active.isPresent()) {
+                jobs.add(active.get());
+                continue;
+            }
+            ProcessingJob job = new ProcessingJob();
+            job.setType(type);
+            job.setSyllabusId(syllabusId);
+            job.setPriority(ProcessingJob.Priority.BACKGROUND);
+            job.setDueAt(syllabus.getStartDate());
+            jobs.add(processingJobRepository.save(job));
+        }
+        return jobs;
+    }
+
+    @Override
+    public ProcessingJob getJob(Long id) {
+        return processingJobRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Job not found with id: " + id));
+    }
+
+    private Optional<ProcessingJob> findActiveTopicGeneration(Long syllabusId, ProcessingJob.JobType type) {
+        return processingJobRepository.findFirstBySyllabusIdAndTypeAndStatusInOrderByCreatedAtDesc(
+                syllabusId, type, ACTIVE_STATUSES);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize job payload: " + e.getMessage());
+        }
+    }
+}
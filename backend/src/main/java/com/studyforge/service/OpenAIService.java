@@ -1,111 +1,534 @@
 package com.studyforge.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studyforge.dto.TopicDto;
 import com.studyforge.dto.TopicGenerationResponse;
+import com.studyforge.service.llm.ChatCompletion;
+import com.studyforge.service.llm.ChatCompletionParser;
+import com.studyforge.service.llm.LlmHttpClient;
+import com.studyforge.service.llm.LlmHttpException;
+import com.studyforge.service.llm.LlmMetrics;
+import com.studyforge.service.llm.LlmModelRouter;
+import com.studyforge.service.llm.LlmRateLimitException;
+import com.studyforge.service.llm.LlmCallExecutor;
+import com.studyforge.service.llm.LlmRequestContext;
+import com.studyforge.service.llm.LlmResponseCache;
+import com.studyforge.service.llm.LlmUsage;
+import com.studyforge.service.llm.StreamingTopicParser;
+import com.studyforge.service.llm.SyllabusChunker;
+import com.studyforge.service.llm.TokenCounter;
+import com.studyforge.service.llm.TopicReader;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class OpenAIService {
     private static final Logger logger = LoggerFactory.getLogger(OpenAIService.class);
 
-    @Value("${openai.api.key}")
-    private String apiKey;
+    private static final double TEMPERATURE = 0.2;
 
-    @Value("${openai.model:gpt-4}")
-    private String model;
+    // Documents above this many tokens are split into chunks that are processed concurrently
+    @Value("${openai.chunk.max-tokens:6000}")
+    private int chunkMaxTokens;
 
-    private final RestTemplate restTemplate;
+    // Completion tokens reserved against the tokens-per-minute quota before a call is sent
+    @Value("${openai.rate-limit.completion-token-estimate:1500}")
+    private int completionTokenEstimate;
+
+    // Tokens kept free in the context window on top of the completion reserve
+    @Value("${openai.context.safety-margin-tokens:200}")
+    private int contextSafetyMargin;
+
+    private final LlmHttpClient llmHttpClient;
+    private final LlmResponseCache responseCache;
     private final ObjectMapper objectMapper;
+    private final ChatCompletionParser completionParser;
+    private final TopicReader topicReader;
+    private final TokenCounter tokenCounter;
+    private final SyllabusChunker syllabusChunker;
+    private final LlmCallExecutor llmCallExecutor;
+    private final LlmMetrics llmMetrics;
+    private final LlmModelRouter modelRouter;
+    private final ExecutorService chunkExecutor;
 
-    public OpenAIService() {
-        this.restTemplate = new RestTemplate();
+    public OpenAIService(LlmHttpClient llmHttpClient, LlmResponseCache responseCache, TokenCounter tokenCounter,
+                         SyllabusChunker syllabusChunker, LlmCallExecutor llmCallExecutor, LlmMetrics llmMetrics,
+                         LlmModelRouter modelRouter,
+                         @Value("${openai.chunk.parallelism:4}") int chunkParallelism) {
+        this.llmHttpClient = llmHttpClient;
+        this.responseCache = responseCache;
+        this.llmCallExecutor = llmCallExecutor;
+        this.llmMetrics = llmMetrics;
+        this.modelRouter = modelRouter;
         this.objectMapper = new ObjectMapper();
+        this.completionParser = new ChatCompletionParser(objectMapper);
+        this.topicReader = new TopicReader(objectMapper);
+        this.tokenCounter = tokenCounter;
+        this.syllabusChunker = syllabusChunker;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.chunkExecutor = Executors.newFixedThreadPool(chunkParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "openai-chunk-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        chunkExecutor.shutdownNow();
     }
 
     /**
      * Process the syllabus document text and generate structured topics
      *
+     * The model is chosen for the whole document by the {@link LlmModelRouter}. Documents that
+     * exceed the chunk budget, or would not fit the model's context window next to the system
+     * prompt and the completion, are split on section boundaries. Topics are extracted from every chunk
+     * concurrently and merged into one ordered, de-duplicated list.
+     *
      * @param documentText The text extracted from the syllabus document
+     * @param context who the topics are generated for
      * @return TopicGenerationResponse containing the structured topics
+     * @throws LlmRateLimitException if the LLM quota could not be obtained in time
      */
-    public TopicGenerationResponse generateTopicsFromSyllabus(String documentText) {
-        String systemPrompt = createSystemPrompt();
-        String userPrompt = documentText;
-        
+    public TopicGenerationResponse generateTopicsFromSyllabus(String documentText, LlmRequestContext context) {
         logger.info("Generating topics for document of length: {} characters", documentText.length());
+        String model = modelRouter.route(documentText).model();
+
+        List<String> chunks = syllabusChunker.chunk(documentText, chunkBudget(model));
+        if (chunks.size() <= 1) {
+            try {
+                return requestTopics(documentText, context, model);
+            } catch (LlmRateLimitException e) {
+                throw e;
+            } catch (IOException e) {
+                logger.error("Failed to parse OpenAI API response", e);
+                return new TopicGenerationResponse(); // Return empty response on error
+            } catch (Exception e) {
+                logger.error("Error calling OpenAI API", e);
+                return new TopicGenerationResponse(); // Return empty response on error
+            }
+        }
+
+        logger.info("Document of {} tokens split into {} chunks", tokenCounter.count(documentText), chunks.size());
+
+        // Map: extract topics from every chunk concurrently
+        List<CompletableFuture<TopicGenerationResponse>> partials = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunkPrompt = createChunkPrompt(chunks.get(i), i + 1, chunks.size());
+            int chunkNumber = i + 1;
+            partials.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return requestTopics(chunkPrompt, context, model);
+                } catch (LlmRateLimitException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // One failed chunk should not discard the topics of the others
+                    logger.error("Error generating topics for chunk {} of {}", chunkNumber, chunks.size(), e);
+                    return new TopicGenerationResponse();
+                }
+            }, chunkExecutor));
+        }
+
+        // Reduce: merge the partial lists in document order
+        List<TopicGenerationResponse> responses = new ArrayList<>();
+        for (CompletableFuture<TopicGenerationResponse> partial : partials) {
+            try {
+                responses.add(partial.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof LlmRateLimitException rateLimitException) {
+                    throw rateLimitException;
+                }
+                throw e;
+            }
+        }
+        return mergeTopics(responses);
+    }
+
+    private TopicGenerationResponse requestTopics(String userPrompt, LlmRequestContext context, String model)
+            throws IOException {
+        String systemPrompt = createSystemPrompt();
+
+        // Identical prompts (re-generation, identical documents) are answered from the cache
+        String cacheKey = responseCache.key(model, systemPrompt, TEMPERATURE, userPrompt);
+        Optional<String> cached = responseCache.get(cacheKey);
+        llmMetrics.recordCacheLookup(LlmMetrics.TOPIC_GENERATION, cached.isPresent());
+        if (cached.isPresent()) {
+            logger.info("Using cached OpenAI response for prompt {}", cacheKey);
+            return topicReader.read(cached.get());
+        }
+
+        checkFitsContext(model, systemPrompt, userPrompt);
+        Map<String, Object> requestBody = createRequestBody(model, systemPrompt, userPrompt);
+        // Retried on transient failures, failed fast while the circuit is open. The body is decoded
+        // into topics as it is read, without an intermediate map or content string.
+        ChatCompletion<TopicGenerationResponse> completion = metered(LlmMetrics.TOPIC_GENERATION, model,
+                () -> llmCallExecutor.call(model, context, estimateTokens(systemPrompt, userPrompt),
+                        onSend -> llmHttpClient.postJson("/chat/completions", requestBody,
+                                llmHttpClient.getDefaultDeadline(),
+                                body -> completionParser.parse(body, topicReader::read), onSend)));
+        recordCompletion(LlmMetrics.TOPIC_GENERATION, model, completion.finishReason(), completion.usage());
+
+        TopicGenerationResponse topicResponse = completion.content();
+        if (topicResponse == null) {
+            logger.warn("OpenAI response carried no message content");
+            return new TopicGenerationResponse();
+        }
+        logger.info("Successfully parsed {} topics from OpenAI response", topicResponse.getTopics().size());
+
+        // The validated topics are cached rather than the raw content
+        if (!topicResponse.getTopics().isEmpty()) {
+            responseCache.put(cacheKey, model, objectMapper.writeValueAsString(topicResponse));
+        }
+
+        return topicResponse;
+    }
+
+    /**
+     * Stream topics for the syllabus document text, handing each topic to {@code onTopic} as soon as
+     * the model has finished writing it.
+     *
+     * Chunks of a large document are streamed one after another so topics still arrive in document
+     * order. A topic whose normalized title was already handed out is skipped, and order indexes are
+     * numbered across the whole document.
+     *
+     * @param documentText The text extracted from the syllabus document
+     * @param context who the topics are generated for
+     * @param onTopic receives every topic once, in order
+     * @return all topics that were handed to {@code onTopic}
+     * @throws LlmRateLimitException if the LLM quota could not be obtained before any topic arrived
+     */
+    public TopicGenerationResponse streamTopicsFromSyllabus(String documentText, LlmRequestContext context,
+                                                           Consumer<TopicDto> onTopic) {
+        logger.info("Streaming topics for document of length: {} characters", documentText.length());
+        String model = modelRouter.route(documentText).model();
+
+        List<String> chunks = syllabusChunker.chunk(documentText, chunkBudget(model));
+        Map<String, TopicDto> emitted = new LinkedHashMap<>();
+        Consumer<TopicDto> deduplicating = topic -> {
+            if (topic.getTitle() == null || topic.getTitle().isBlank()) {
+                return;
+            }
+            String key = normalizeTitle(topic.getTitle());
+            if (emitted.containsKey(key)) {
+                return;
+            }
+            topic.setOrderIndex(emitted.size());
+            emitted.put(key, topic);
+            onTopic.accept(topic);
+        };
+
+        for (int i = 0; i < chunks.size(); i++) {
+            String userPrompt = chunks.size() == 1
+                    ? documentText
+                    : createChunkPrompt(chunks.get(i), i + 1, chunks.size());
+            try {
+                streamTopics(userPrompt, context, model, deduplicating);
+            } catch (LlmRateLimitException e) {
+                if (emitted.isEmpty()) {
+                    throw e;
+                }
+                // Topics were already saved and shown; keep them rather than fail the whole stream
+                logger.warn("Stopped streaming after chunk {} of {}: {}", i, chunks.size(), e.getMessage());
+                break;
+            } catch (IOException | LlmHttpException e) {
+                // Topics already streamed are kept; the remaining chunks may still succeed
+                logger.error("Error streaming topics for chunk {} of {}", i + 1, chunks.size(), e);
+            }
+        }
+
+        TopicGenerationResponse response = new TopicGenerationResponse();
+        response.setTopics(new ArrayList<>(emitted.values()));
+        return response;
+    }
+
+    private void streamTopics(String userPrompt, LlmRequestContext context, String model,
+                              Consumer<TopicDto> onTopic) throws IOException {
+        String systemPrompt = createSystemPrompt();
+
+        String cacheKey = responseCache.key(model, systemPrompt, TEMPERATURE, userPrompt);
+        Optional<String> cached = responseCache.get(cacheKey);
+        llmMetrics.recordCacheLookup(LlmMetrics.TOPIC_STREAMING, cached.isPresent());
+        if (cached.isPresent()) {
+            logger.info("Using cached OpenAI response for prompt {}", cacheKey);
+            topicReader.read(cached.get()).getTopics().forEach(onTopic);
+            return;
+        }
+
+        checkFitsContext(model, systemPrompt, userPrompt);
+        Map<String, Object> requestBody = createRequestBody(model, systemPrompt, userPrompt);
+        requestBody.put("stream", true);
+        // The last chunk then reports the usage of the whole stream
+        requestBody.put("stream_options", Map.of("include_usage", true));
+
+        List<TopicDto> streamed = new ArrayList<>();
+        AtomicBoolean received = new AtomicBoolean();
+        AtomicReference<String> finishReason = new AtomicReference<>();
+        AtomicReference<LlmUsage> usage = new AtomicReference<>();
+        try (StreamingTopicParser parser = new StreamingTopicParser(objectMapper, topicReader, topic -> {
+            streamed.add(topic);
+            onTopic.accept(topic);
+        })) {
+            // A failed stream is only retried if nothing of it was received yet
+            metered(LlmMetrics.TOPIC_STREAMING, model, () -> llmCallExecutor.callStreaming(model, context,
+                    estimateTokens(systemPrompt, userPrompt), () -> !received.get(), (onSend, onFirstToken) -> {
+                        llmHttpClient.postEventStream("/chat/completions", requestBody, llmHttpClient.getStreamDeadline(),
+                                data -> {
+                                    ChatCompletion<String> chunk = completionParser.parseChunk(data);
+                                    if (chunk.content() != null && !chunk.content().isEmpty()) {
+                                        if (!received.getAndSet(true)) {
+                                            onFirstToken.run();
+                                        }
+                                        parser.feed(chunk.content());
+                                    }
+                                    if (chunk.finishReason() != null) {
+                                        finishReason.set(chunk.finishReason());
+                                    }
+                                    if (chunk.usage() != null) {
+                                        usage.set(chunk.usage());
+                                    }
+                                }, onSend);
+                        return null;
+                    }));
+            recordCompletion(LlmMetrics.TOPIC_STREAMING, model, finishReason.get(), usage.get());
+            logger.info("Streamed {} topics from OpenAI response", parser.getTopicCount());
+
+            // Only complete answers are cached; an interrupted stream leaves nothing behind
+            if (!streamed.isEmpty()) {
+                TopicGenerationResponse response = new TopicGenerationResponse();
+                response.setTopics(streamed);
+                responseCache.put(cacheKey, model, objectMapper.writeValueAsString(response));
+            }
+        }
+    }
+
+    /**
+     * Build the chat completion requests that generate topics for the document through the batch
+     * API, one per chunk in document order. The model and chunking are chosen as for an
+     * interactive call; the rate limiter is not involved because batches have their own quota.
+     *
+     * @return the request bodies, empty for a blank document
+     */
+    public List<Map<String, Object>> createBatchRequests(String documentText) {
+        String model = modelRouter.route(documentText).model();
+        String systemPrompt = createSystemPrompt();
+        List<String> chunks = syllabusChunker.chunk(documentText, chunkBudget(model));
+
+        List<Map<String, Object>> requests = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            String userPrompt = chunks.size() == 1
+                    ? documentText
+                    : createChunkPrompt(chunks.get(i), i + 1, chunks.size());
+            checkFitsContext(model, systemPrompt, userPrompt);
+            requests.add(createRequestBody(model, systemPrompt, userPrompt));
+        }
+        return requests;
+    }
 
+    /**
+     * Decode the batch answers to the requests of {@link #createBatchRequests(String)} and merge
+     * them like the chunks of an interactive call.
+     *
+     * @param completions the chat completion bodies in request order, null for a request that failed
+     */
+    public TopicGenerationResponse topicsFromBatchResults(List<JsonNode> completions) {
+        List<TopicGenerationResponse> responses = new ArrayList<>();
+        for (JsonNode completion : completions) {
+            if (completion == null) {
+                continue;
+            }
+            try {
+                ChatCompletion<TopicGenerationResponse> parsed = completionParser.parse(
+                        new ByteArrayInputStream(objectMapper.writeValueAsBytes(completion)), topicReader::read);
+                String model = parsed.model() != null ? parsed.model() : "unknown";
+                recordCompletion(LlmMetrics.TOPIC_BATCH, model, parsed.finishReason(), parsed.usage());
+                if (parsed.content() != null) {
+                    responses.add(parsed.content());
+                }
+            } catch (IOException e) {
+                // One unreadable answer should not discard the topics of the other chunks
+                logger.error("Failed to parse batch completion", e);
+            }
+        }
+        return mergeTopics(responses);
+    }
+
+    /**
+     * Time one LLM call of the given operation and count it as in flight while it runs. The router's
+     * SLO check gets per-attempt latencies from the LlmCallExecutor instead.
+     */
+    private <T> T metered(String operation, String model, Supplier<T> call) {
+        LlmMetrics.Call metered = llmMetrics.start(operation, model);
+        String outcome = LlmMetrics.OUTCOME_ERROR;
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(apiKey);
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", model);
-            
-            List<Map<String, String>> messages = new ArrayList<>();
-            
-            Map<String, String> systemMessage = new HashMap<>();
-            systemMessage.put("role", "system");
-            systemMessage.put("content", systemPrompt);
-            messages.add(systemMessage);
-
-            Map<String, String> userMessage = new HashMap<>();
-            userMessage.put("role", "user");
-            userMessage.put("content", userPrompt);
-            messages.add(userMessage);
-
-            requestBody.put("messages", messages);
-            
-            // Ensure we get structured JSON output
-            requestBody.put("response_format", Map.of("type", "json_object"));
-            
-            // Set temperature for more deterministic output
-            requestBody.put("temperature", 0.2);
-
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                "https://api.openai.com/v1/chat/completions",
-                request,
-                Map.class
-            );
-
-            Map<String, Object> responseBody = response.getBody();
-            List<Map<String, Object>> choices = (List<Map<String, Object>>) responseBody.get("choices");
-            Map<String, Object> choice = choices.get(0);
-            Map<String, Object> message = (Map<String, Object>) choice.get("message");
-            
-            String content = (String) message.get("content");
-            logger.debug("OpenAI API response: {}", content);
-            
-            // Parse the JSON response into our DTO
-            TopicGenerationResponse topicResponse = objectMapper.readValue(content, TopicGenerationResponse.class);
-            logger.info("Successfully parsed {} topics from OpenAI response", 
-                topicResponse.getTopics() != null ? topicResponse.getTopics().size() : 0);
-                
-            return topicResponse;
-            
-        } catch (JsonProcessingException e) {
-            logger.error("Failed to parse OpenAI API response", e);
-            return new TopicGenerationResponse(); // Return empty response on error
-        } catch (Exception e) {
-            logger.error("Error calling OpenAI API", e);
-            return new TopicGenerationResponse(); // Return empty response on error
+            T result = call.get();
+            outcome = LlmMetrics.OUTCOME_SUCCESS;
+            return result;
+        } catch (LlmRateLimitException e) {
+            outcome = LlmMetrics.OUTCOME_RATE_LIMITED;
+            throw e;
+        } finally {
+            metered.stop(outcome);
+        }
+    }
+
+    private void recordCompletion(String operation, String model, String finishReason, LlmUsage usage) {
+        if ("length".equals(finishReason)) {
+            logger.warn("OpenAI response was cut off at the completion token limit");
+        }
+        if (usage != null) {
+            logger.debug("OpenAI call used {} prompt and {} completion tokens",
+                    usage.promptTokens(), usage.completionTokens());
+            llmMetrics.recordUsage(operation, model, usage);
+        }
+    }
+
+    /**
+     * Merge the topics extracted from consecutive chunks. Topics whose normalized titles match are
+     * folded into the first occurrence, and order indexes are renumbered across the whole document.
+     */
+    private TopicGenerationResponse mergeTopics(List<TopicGenerationResponse> responses) {
+        Map<String, TopicDto> byTitle = new LinkedHashMap<>();
+        for (TopicGenerationResponse response : responses) {
+            if (response.getTopics() == null) {
+                continue;
+            }
+            List<TopicDto> chunkTopics = new ArrayList<>(response.getTopics());
+            chunkTopics.sort(Comparator.comparingInt(TopicDto::getOrderIndex));
+            for (TopicDto topic : chunkTopics) {
+                if (topic.getTitle() == null || topic.getTitle().isBlank()) {
+                    continue;
+                }
+                String key = normalizeTitle(topic.getTitle());
+                TopicDto existing = byTitle.get(key);
+                if (existing == null) {
+                    byTitle.put(key, topic);
+                } else {
+                    mergeInto(existing, topic);
+                }
+            }
+        }
+
+        List<TopicDto> merged = new ArrayList<>(byTitle.values());
+        for (int i = 0; i < merged.size(); i++) {
+            merged.get(i).setOrderIndex(i);
+        }
+        logger.info("Merged {} chunk responses into {} topics", responses.size(), merged.size());
+
+        TopicGenerationResponse response = new TopicGenerationResponse();
+        response.setTopics(merged);
+        return response;
+    }
+
+    private void mergeInto(TopicDto target, TopicDto duplicate) {
+        if (target.getContent() == null || target.getContent().isBlank()) {
+            target.setContent(duplicate.getContent());
         }
+        target.setEstimatedDurationMinutes(target.getEstimatedDurationMinutes() + duplicate.getEstimatedDurationMinutes());
+        target.setKeyTerms(union(target.getKeyTerms(), duplicate.getKeyTerms()));
+        target.setLearningObjectives(union(target.getLearningObjectives(), duplicate.getLearningObjectives()));
+    }
+
+    private List<String> union(List<String> first, List<String> second) {
+        Set<String> values = new LinkedHashSet<>();
+        if (first != null) {
+            values.addAll(first);
+        }
+        if (second != null) {
+            values.addAll(second);
+        }
+        return new ArrayList<>(values);
+    }
+
+    private String normalizeTitle(String title) {
+        return title.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").strip();
+    }
+
+    private int estimateTokens(String systemPrompt, String userPrompt) {
+        return tokenCounter.countPrompt(systemPrompt, userPrompt) + completionTokenEstimate;
+    }
+
+    /**
+     * @return the most document tokens one request to {@code model} can carry
+     */
+    private int chunkBudget(String model) {
+        int available = tokenCounter.contextWindow(model) - tokenCounter.countPrompt(createSystemPrompt(), "")
+                - completionTokenEstimate - contextSafetyMargin;
+        return Math.max(1, Math.min(chunkMaxTokens, available));
+    }
+
+    /**
+     * Reject a prompt that cannot fit the context window locally instead of paying for the round
+     * trip and the quota of a request the provider would refuse.
+     */
+    private void checkFitsContext(String model, String systemPrompt, String userPrompt) {
+        int promptTokens = tokenCounter.countPrompt(systemPrompt, userPrompt);
+        int contextWindow = tokenCounter.contextWindow(model);
+        if (promptTokens + completionTokenEstimate > contextWindow) {
+            throw new LlmHttpException(400, "Prompt of " + promptTokens + " tokens does not fit the "
+                    + contextWindow + "-token context window of " + model, null);
+        }
+    }
+
+    private Map<String, Object> createRequestBody(String model, String systemPrompt, String userPrompt) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+        
+        List<Map<String, String>> messages = new ArrayList<>();
+        
+        Map<String, String> systemMessage = new HashMap<>();
+        systemMessage.put("role", "system");
+        systemMessage.put("content", systemPrompt);
+        messages.add(systemMessage);
+
+        Map<String, String> userMessage = new HashMap<>();
+        userMessage.put("role", "user");
+        userMessage.put("content", userPrompt);
+        messages.add(userMessage);
+
+        requestBody.put("messages", messages);
+        
+        // Ensure we get structured JSON output
+        requestBody.put("response_format", Map.of("type", "json_object"));
+        
+        // Set temperature for more deterministic output
+        requestBody.put("temperature", TEMPERATURE);
+        return requestBody;
+    }
+
+    /**
+     * Wraps one chunk of a larger syllabus so the model only covers that part.
+     */
+    private String createChunkPrompt(String chunk, int chunkNumber, int chunkCount) {
+        return "The following is part " + chunkNumber + " of " + chunkCount + " of a longer syllabus. " +
+            "Only create topics for the material in this part, 1-6 topics depending on how much it covers, " +
+            "and number orderIndex from 0 in the order the material appears.\n\n" + chunk;
     }
 
     /**
@@ -0,0 +1,409 @@
+package com.studyforge.service;
+
+import com.studyforge.dto.TopicDto;
+import com.studyforge.model.Syllabus;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDFontDescriptor;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xwpf.usermodel.IBodyElement;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFStyle;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recovers the section outline of a syllabus from its layout and turns it into topics without an
+ * LLM call.
+ *
+ * Headings are recognised from what the author marked as headings:
+ * <ul>
+ *   <li>PDF: lines set in a larger font than the body text, or entirely in bold (via PDFBox
+ *   {@link TextPosition} font size and weight); larger fonts rank higher;</li>
+ *   <li>Word: paragraphs styled Heading 1, Heading 2, ...;</li>
+ *   <li>plain text: Markdown headings and lines such as "Week 3: Sorting".</li>
+ * </ul>
+ *
+ * The heading level with a plausible number of sections becomes the topic level. Topics are only
+ * returned when the outline is convincing: enough sections, distinct titles, and most of the body
+ * text inside them. Otherwise the caller should ask the LLM.
+ */
+@Component
+public class OutlineExtractor {
+    private static final Logger logger = LoggerFactory.getLogger(OutlineExtractor.class);
+
+    private static final Pattern WORD_HEADING_STYLE = Pattern.compile("(?i)heading\\s*(\\d)");
+    private static final Pattern MARKDOWN_HEADING = Pattern.compile("^(#{1,4})\\s+(\\S.*)$");
+    private static final Pattern SCHEDULE_HEADING = Pattern.compile(
+            "^(?i:week|unit|module|chapter|lecture|session|lesson|part)\\s*\\d+\\b.{0,100}$");
+
+    // Topics table column sizes
+    private static final int MAX_TITLE_LENGTH = 255;
+    private static final int MAX_CONTENT_LENGTH = 2000;
+
+    private static final int MAX_HEADING_LENGTH = 120;
+    private static final int DEFAULT_DURATION_MINUTES = 60;
+
+    @Value("${studyforge.outline.enabled:true}")
+    private boolean enabled;
+
+    @Value("${studyforge.outline.min-topics:3}")
+    private int minTopics;
+
+    @Value("${studyforge.outline.max-topics:20}")
+    private int maxTopics;
+
+    // Share of the body text that must fall inside the chosen sections
+    @Value("${studyforge.outline.min-coverage:0.8}")
+    private double minCoverage;
+
+    // A PDF line counts as a heading when its font is at least this much larger than the body font
+    @Value("${studyforge.outline.pdf-heading-size-ratio:1.15}")
+    private double pdfHeadingSizeRatio;
+
+    @Value("${studyforge.outline.pdf-max-pages:60}")
+    private int pdfMaxPages;
+
+    @Value("${studyforge.extraction.pdf-max-main-memory-bytes:4194304}")
+    private long pdfMaxMainMemoryBytes;
+
+    /**
+     * A line or paragraph of the document; {@code level} is 0 for body text and 1 for the most
+     * prominent headings.
+     */
+    private record Block(int level, String text) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Build topics from the outline of the stored document, if it is clear enough to trust.
+     *
+     * @return the topics in document order, or empty if the LLM should be asked instead
+     */
+    public Optional<List<TopicDto>> extractTopics(Path source, Syllabus.DocumentType documentType) {
+        if (!enabled || source == null || documentType == null || !Files.exists(source)) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        try {
+            List<Block> blocks = switch (documentType) {
+                case PDF -> readPdf(source);
+                case WORD -> readWord(source);
+                case TEXT -> readText(source);
+                default -> List.of();
+            };
+            Optional<List<TopicDto>> topics = buildTopics(blocks);
+            logger.info("Outline of {} document {}: {} in {} ms", documentType, source.getFileName(),
+                    topics.map(t -> t.size() + " topics").orElse("not confident"),
+                    (System.nanoTime() - start) / 1_000_000);
+            return topics;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read the outline of {}: {}", source, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Optional<List<TopicDto>> buildTopics(List<Block> blocks) {
+        Set<Integer> levels = new TreeSet<>();
+        for (Block block : blocks) {
+            if (block.level() > 0) {
+                levels.add(block.level());
+            }
+        }
+
+        for (int level : levels) {
+            long count = blocks.stream().filter(block -> block.level() == level).count();
+            if (count > maxTopics) {
+                // Deeper levels only have more sections
+                break;
+            }
+            if (count >= minTopics) {
+                Optional<List<TopicDto>> topics = sectionsAt(blocks, level);
+                if (topics.isPresent()) {
+                    return topics;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Split the document into one topic per heading of {@code level}. Higher-ranked headings end a
+     * section; lower-ranked ones become part of its content.
+     */
+    private Optional<List<TopicDto>> sectionsAt(List<Block> blocks, int level) {
+        List<TopicDto> topics = new ArrayList<>();
+        Set<String> titles = new HashSet<>();
+        StringBuilder content = null;
+        long bodyChars = 0;
+        long coveredChars = 0;
+
+        for (Block block : blocks) {
+            if (block.level() > 0 && block.level() <= level) {
+                finishSection(topics, content);
+                content = null;
+                if (block.level() == level) {
+                    String title = block.text().strip();
+                    if (title.isEmpty() || title.length() > MAX_HEADING_LENGTH
+                            || !titles.add(title.toLowerCase(Locale.ROOT))) {
+                        // Repeated or implausible headings (running headers, sentences) are not an outline
+                        return Optional.empty();
+                    }
+                    TopicDto topic = new TopicDto();
+                    topic.setTitle(truncate(title, MAX_TITLE_LENGTH));
+                    topic.setOrderIndex(topics.size());
+                    topic.setEstimatedDurationMinutes(DEFAULT_DURATION_MINUTES);
+                    topics.add(topic);
+                    content = new StringBuilder();
+                }
+                continue;
+            }
+            int length = block.text().strip().length();
+            bodyChars += length;
+            if (content != null) {
+                coveredChars += length;
+                if (content.length() < MAX_CONTENT_LENGTH) {
+                    content.append(block.text().strip()).append('\n');
+                }
+            }
+        }
+        finishSection(topics, content);
+
+        double coverage = bodyChars == 0 ? 0 : (double) coveredChars / bodyChars;
+        if (coverage < minCoverage) {
+            logger.debug("Level {} headings cover only {}% of the text", level, Math.round(coverage * 100));
+            return Optional.empty();
+        }
+        return Optional.of(topics);
+    }
+
+    private void finishSection(List<TopicDto> topics, StringBuilder content) {
+        if (content == null || topics.isEmpty()) {
+            return;
+        }
+        TopicDto topic = topics.get(topics.size() - 1);
+        String text = content.toString().strip();
+        topic.setContent(text.isEmpty() ? topic.getTitle() : truncate(text, MAX_CONTENT_LENGTH));
+    }
+
+    private List<Block> readPdf(Path source) throws IOException {
+        try (PDDocument document = PDDocument.load(source.toFile(), MemoryUsageSetting.setupMixed(pdfMaxMainMemoryBytes))) {
+            if (document.getNumberOfPages() > pdfMaxPages) {
+                return List.of();
+            }
+            LineCollector collector = new LineCollector();
+            collector.writeText(document, Writer.nullWriter());
+            return collector.toBlocks(pdfHeadingSizeRatio);
+        }
+    }
+
+    private List<Block> readWord(Path source) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(source.toFile(), PackageAccess.READ);
+        } catch (InvalidFormatException e) {
+            throw new IOException("Invalid Word document: " + e.getMessage(), e);
+        }
+        try (XWPFDocument document = new XWPFDocument(pkg)) {
+            List<Block> blocks = new ArrayList<>();
+            for (IBodyElement element : document.getBodyElements()) {
+                if (element instanceof XWPFParagraph paragraph) {
+                    if (!paragraph.getText().isBlank()) {
+                        blocks.add(new Block(headingLevel(document, paragraph), paragraph.getText()));
+                    }
+                } else if (element instanceof XWPFTable table) {
+                    blocks.add(new Block(0, table.getText()));
+                }
+            }
+            return blocks;
+        }
+    }
+
+    private int headingLevel(XWPFDocument document, XWPFParagraph paragraph) {
+        String styleId = paragraph.getStyleID();
+        if (styleId == null) {
+            return 0;
+        }
+        XWPFStyle style = document.getStyles() != null ? document.getStyles().getStyle(styleId) : null;
+        Matcher matcher = WORD_HEADING_STYLE.matcher(style != null && style.getName() != null ? style.getName() : styleId);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+
+    private List<Block> readText(Path source) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        // Like the text extractor, substitute malformed input instead of failing on non UTF-8 files
+        try (Reader reader = new InputStreamReader(Files.newInputStream(source), StandardCharsets.UTF_8)) {
+            StringBuilder text = new StringBuilder();
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+            for (String line : text.toString().split("\\R")) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Matcher markdown = MARKDOWN_HEADING.matcher(line.strip());
+                if (markdown.matches()) {
+                    blocks.add(new Block(markdown.group(1).length(), markdown.group(2)));
+                } else if (SCHEDULE_HEADING.matcher(line.strip()).matches()) {
+                    // Below Markdown headings, which may title the document or group the schedule
+                    blocks.add(new Block(5, line));
+                } else {
+                    blocks.add(new Block(0, line));
+                }
+            }
+        }
+        return blocks;
+    }
+
+    private String truncate(String value, int maxLength) {
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    /**
+     * Collects the text lines of a PDF together with their font size and whether they are
+     * entirely bold.
+     */
+    private static final class LineCollector extends PDFTextStripper {
+
+        private record Line(String text, float fontSize, boolean bold) {
+        }
+
+        private final List<Line> lines = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+        private double sizeSum;
+        private int glyphs;
+        private int boldGlyphs;
+
+        private LineCollector() throws IOException {
+            setSortByPosition(true);
+        }
+
+        @Override
+        protected void writeString(String string, List<TextPosition> textPositions) {
+            text.append(string);
+            for (TextPosition position : textPositions) {
+                if (position.getUnicode() == null || position.getUnicode().isBlank()) {
+                    continue;
+                }
+                sizeSum += position.getFontSizeInPt();
+                glyphs++;
+                if (isBold(position.getFont())) {
+                    boldGlyphs++;
+                }
+            }
+        }
+
+        @Override
+        protected void writeWordSeparator() {
+            text.append(' ');
+        }
+
+        @Override
+        protected void writeLineSeparator() {
+            finishLine();
+        }
+
+        @Override
+        protected void writePageEnd() {
+            finishLine();
+        }
+
+        private void finishLine() {
+            if (glyphs > 0 && !text.toString().isBlank()) {
+                // Half-point buckets absorb rounding differences between otherwise equal fonts
+                float size = Math.round(sizeSum / glyphs * 2) / 2f;
+                lines.add(new Line(text.toString().strip(), size, boldGlyphs == glyphs));
+            }
+            text.setLength(0);
+            sizeSum = 0;
+            glyphs = 0;
+            boldGlyphs = 0;
+        }
+
+        private boolean isBold(PDFont font) {
+            if (font == null) {
+                return false;
+            }
+            PDFontDescriptor descriptor = font.getFontDescriptor();
+            if (descriptor != null && (descriptor.isForceBold() || descriptor.getFontWeight() >= 600)) {
+                return true;
+            }
+            String name = font.getName();
+            return name != null && name.toLowerCase(Locale.ROOT).contains("bold");
+        }
+
+        /**
+         * Rank heading lines by font size: the largest heading size is level 1, and lines in bold
+         * at body size rank below every larger font.
+         */
+        private List<Block> toBlocks(double headingSizeRatio) {
+            Map<Float, Integer> charsBySize = new HashMap<>();
+            for (Line line : lines) {
+                charsBySize.merge(line.fontSize(), line.text().length(), Integer::sum);
+            }
+            float bodySize = charsBySize.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .orElse(0f);
+
+            TreeSet<Float> headingSizes = new TreeSet<>();
+            for (Line line : lines) {
+                if (isHeadingCandidate(line) && line.fontSize() >= bodySize * headingSizeRatio) {
+                    headingSizes.add(line.fontSize());
+                }
+            }
+            List<Float> ranked = new ArrayList<>(headingSizes.descendingSet());
+
+            List<Block> blocks = new ArrayList<>();
+            for (Line line : lines) {
+                int level = 0;
+                if (isHeadingCandidate(line)) {
+                    if (headingSizes.contains(line.fontSize())) {
+                        level = ranked.indexOf(line.fontSize()) + 1;
+                    } else if (line.bold() && line.fontSize() >= bodySize) {
+                        level = ranked.size() + 1;
+                    }
+                }
+                blocks.add(new Block(level, line.text()));
+            }
+            return blocks;
+        }
+
+        private boolean isHeadingCandidate(Line line) {
+            return line.text().length() <= MAX_HEADING_LENGTH && !line.text().endsWith(".");
+        }
+    }
+}
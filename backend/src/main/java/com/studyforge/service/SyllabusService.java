@@ -1,10 +1,13 @@
 package com.studyforge.service;
 
+import com.studyforge.dto.TopicGenerationResponse;
 import com.studyforge.model.Syllabus;
 import com.studyforge.model.Topic;
+import com.studyforge.service.llm.LlmRequestContext;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface SyllabusService {
     Syllabus createSyllabus(Syllabus syllabus, Long userId);
@@ -15,7 +18,14 @@ public interface SyllabusService {
     Syllabus processDocument(MultipartFile file, String title, String description, Long userId, 
                         java.time.LocalDateTime startDate, java.time.LocalDateTime endDate);
     Syllabus processDocument(MultipartFile file, String title, String description, Long userId);
+    ExtractedTextStore.StoredBlob storeDocument(MultipartFile file);
+    Syllabus processStoredDocument(ExtractedTextStore.StoredBlob blob, String title, String description, Long userId,
+                        java.time.LocalDateTime startDate, java.time.LocalDateTime endDate);
     List<Topic> generateTopicsFromSyllabus(Long syllabusId);
+    List<Topic> generateTopicsFromSyllabus(Long syllabusId, LlmRequestContext.Priority priority);
+    List<Topic> streamTopicsFromSyllabus(Long syllabusId, java.util.function.Consumer<Topic> onTopic);
+    Optional<String> topicGenerationPrompt(Long syllabusId);
+    List<Topic> saveGeneratedTopics(Long syllabusId, TopicGenerationResponse response);
     Syllabus getSyllabusWithDetails(Long id);
 
 }
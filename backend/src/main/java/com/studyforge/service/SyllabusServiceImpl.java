@@ -1,5 +1,6 @@
 package com.studyforge.service;
 
+import com.studyforge.model.ExtractedDocument;
 import com.studyforge.model.Syllabus;
 import com.studyforge.model.Topic;
 import com.studyforge.repository.SyllabusRepository;
@@ -7,27 +8,44 @@ import com.studyforge.repository.TopicRepository;
 import com.studyforge.repository.UserRepository;
 import com.studyforge.dto.TopicGenerationResponse;
 import com.studyforge.dto.TopicDto;
+import com.studyforge.service.llm.LlmMetrics;
+import com.studyforge.service.llm.SyllabusTextCompactor;
+import com.studyforge.service.llm.TokenCounter;
+import com.studyforge.service.llm.LlmRateLimitException;
+import com.studyforge.service.llm.LlmRequestContext;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 public class SyllabusServiceImpl implements SyllabusService {
+    private static final Logger logger = LoggerFactory.getLogger(SyllabusServiceImpl.class);
 
     @Value("${openai.api.key}")
     private String openaiApiKey;
@@ -36,13 +54,56 @@ public class SyllabusServiceImpl implements SyllabusService {
     private final UserRepository userRepository;
     private final TopicRepository topicRepository;
     private final OpenAIService openAIService;
+    private final ExtractedTextStore extractedTextStore;
+    private final LlmMetrics llmMetrics;
+    private final TokenCounter tokenCounter;
+    private final SyllabusTextCompactor textCompactor;
+    
+    private final Map<Long, CompletableFuture<List<Topic>>> topicGenerations = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService leaseRenewals;
+    
+    @Value("${studyforge.topics.generation-lease-minutes:10}")
+    private long generationLeaseMinutes;
+    
+    @Value("${studyforge.topics.generation-wait-poll-ms:1000}")
+    private long generationWaitPollMs;
+    
+    // A caller waiting for another caller's generation gives up after this long
+    @Value("${studyforge.topics.generation-wait-timeout-minutes:30}")
+    private long generationWaitTimeoutMinutes;
+    
+    // A request within this long after a generation finished gets its topics instead of a second set
+    @Value("${studyforge.topics.regeneration-window-seconds:120}")
+    private long regenerationWindowSeconds;
+
+    // Larger documents would take dozens of LLM calls to cover and are refused at upload
+    @Value("${studyforge.upload.max-document-tokens:150000}")
+    private int maxDocumentTokens;
 
     public SyllabusServiceImpl(SyllabusRepository syllabusRepository, UserRepository userRepository, 
-                             TopicRepository topicRepository, OpenAIService openAIService) {
+                             TopicRepository topicRepository, OpenAIService openAIService,
+                             ExtractedTextStore extractedTextStore, LlmMetrics llmMetrics,
+                             TokenCounter tokenCounter,
+                             SyllabusTextCompactor textCompactor) {
         this.syllabusRepository = syllabusRepository;
         this.userRepository = userRepository;
         this.topicRepository = topicRepository;
         this.openAIService = openAIService;
+        this.extractedTextStore = extractedTextStore;
+        this.llmMetrics = llmMetrics;
+        this.tokenCounter = tokenCounter;
+        this.textCompactor = textCompactor;
+        this.leaseRenewals = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "topic-lease-renewal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        // Leases of generations cut short here expire on their own
+        leaseRenewals.shutdownNow();
     }
 
     @Override
@@ -92,27 +153,37 @@ public class SyllabusServiceImpl implements SyllabusService {
     @Override
     public Syllabus processDocument(MultipartFile file, String title, String description, Long userId, 
                                   LocalDateTime startDate, LocalDateTime endDate) {
+        return processStoredDocument(storeDocument(file), title, description, userId, startDate, endDate);
+    }
+
+    @Override
+    public ExtractedTextStore.StoredBlob storeDocument(MultipartFile file) {
+        Syllabus.DocumentType documentType = determineDocumentType(file.getContentType());
+        try (InputStream in = file.getInputStream()) {
+            return extractedTextStore.storeBlob(in, documentType);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store document: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Syllabus processStoredDocument(ExtractedTextStore.StoredBlob blob, String title, String description,
+                                          Long userId, LocalDateTime startDate, LocalDateTime endDate) {
         try {
-            String contentType = file.getContentType();
-            String fileName = UUID.randomUUID() + "_" + file.getOriginalFilename();
-            Path uploadPath = Paths.get("uploads");
-            
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
+            // Identical uploads share one stored blob and one extraction
+            ExtractedDocument document = extractedTextStore.extract(blob);
+            int documentTokens = tokenCounter.count(document.getText());
+            if (documentTokens > maxDocumentTokens) {
+                throw new RuntimeException("Document is too large: " + documentTokens
+                        + " tokens, at most " + maxDocumentTokens + " are supported");
             }
             
-            Path filePath = uploadPath.resolve(fileName);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            Syllabus.DocumentType documentType = determineDocumentType(contentType);
-            // Extract text but don't store it in syllabus object, it will be extracted again when generating topics
-            extractTextFromDocument(file, documentType);
-            
             Syllabus syllabus = new Syllabus();
             syllabus.setTitle(title);
             syllabus.setDescription(description);
-            syllabus.setDocumentType(documentType);
-            syllabus.setOriginalDocumentUrl(filePath.toString());
+            syllabus.setDocumentType(blob.documentType());
+            syllabus.setOriginalDocumentUrl(document.getStoragePath());
+            syllabus.setContentHash(document.getContentHash());
             syllabus.setStartDate(startDate);
             syllabus.setEndDate(endDate);
             
@@ -124,42 +195,286 @@ public class SyllabusServiceImpl implements SyllabusService {
 
     @Override
     public List<Topic> generateTopicsFromSyllabus(Long syllabusId) {
-        Syllabus syllabus = getSyllabus(syllabusId);
+        return generateTopicsFromSyllabus(syllabusId, LlmRequestContext.Priority.QUEUED);
+    }
+    
+    /**
+     * @param priority how urgently the LLM calls are admitted; a caller joining a generation already
+     *                 in flight waits at the priority that generation was started with
+     */
+    @Override
+    public List<Topic> generateTopicsFromSyllabus(Long syllabusId, LlmRequestContext.Priority priority) {
+        // Concurrent callers on this node share the generation already in flight
+        CompletableFuture<List<Topic>> generation = new CompletableFuture<>();
+        CompletableFuture<List<Topic>> inFlight = topicGenerations.putIfAbsent(syllabusId, generation);
+        if (inFlight != null) {
+            return awaitTopics(inFlight);
+        }
         
         try {
-            String extractedText = "";
-            
-            if (syllabus.getOriginalDocumentUrl() != null) {
-                Path filePath = Paths.get(syllabus.getOriginalDocumentUrl());
-                
-                if (Files.exists(filePath)) {
-                    if (syllabus.getDocumentType() == Syllabus.DocumentType.PDF) {
-                        try (PDDocument document = PDDocument.load(filePath.toFile())) {
-                            PDFTextStripper pdfStripper = new PDFTextStripper();
-                            extractedText = pdfStripper.getText(document);
-                        }
-                    } else if (syllabus.getDocumentType() == Syllabus.DocumentType.WORD) {
-                        try (XWPFDocument document = new XWPFDocument(Files.newInputStream(filePath));
-                             XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
-                            extractedText = extractor.getText();
-                        }
-                    } else if (syllabus.getDocumentType() == Syllabus.DocumentType.TEXT) {
-                        extractedText = new String(Files.readAllBytes(filePath));
-                    }
+            generation.complete(generateTopicsOnce(syllabusId, (extractedText, syllabus, lease) ->
+                    generateTopicsWithAI(extractedText, syllabus, priority, lease)));
+        } catch (RuntimeException e) {
+            generation.completeExceptionally(e);
+        } finally {
+            topicGenerations.remove(syllabusId, generation);
+        }
+        return awaitTopics(generation);
+    }
+    
+    @Override
+    public List<Topic> streamTopicsFromSyllabus(Long syllabusId, Consumer<Topic> onTopic) {
+        Set<Long> streamed = new HashSet<>();
+        List<Topic> topics = generateTopicsOnce(syllabusId, (extractedText, syllabus, lease) ->
+                streamTopicsWithAI(extractedText, syllabus, lease, topic -> {
+                    streamed.add(topic.getId());
+                    onTopic.accept(topic);
+                }));
+        
+        // Topics another caller generated while this one waited, or fallback topics, arrive all at once
+        for (Topic topic : topics) {
+            if (!streamed.contains(topic.getId())) {
+                onTopic.accept(topic);
+            }
+        }
+        return topics;
+    }
+    
+    /**
+     * The compacted text topic generation would prompt the LLM with, for requests prepared ahead of
+     * time such as batches. Empty when the document's own outline gives the topics, in which case
+     * {@link #generateTopicsFromSyllabus(Long)} needs no LLM call.
+     */
+    @Override
+    public Optional<String> topicGenerationPrompt(Long syllabusId) {
+        Syllabus syllabus = getSyllabus(syllabusId);
+        try {
+            Optional<ExtractedDocument> document = loadExtractedDocument(syllabus);
+            if (document.flatMap(extractedTextStore::outlineTopics).isPresent()) {
+                return Optional.empty();
+            }
+            return Optional.of(textCompactor.compact(document.map(ExtractedDocument::getText).orElse("")));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load syllabus text: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Persist topics generated outside this service, e.g. by a batch, under the generation lease.
+     * The response is saved as it is, without looking at the document's outline again; an empty
+     * response falls back to the paragraph split like a failed LLM call.
+     */
+    @Override
+    public List<Topic> saveGeneratedTopics(Long syllabusId, TopicGenerationResponse response) {
+        return withTopicGenerationLease(syllabusId, (syllabus, lease) -> {
+            List<Topic> topics = new ArrayList<>();
+            if (response.getTopics() != null && !response.getTopics().isEmpty()) {
+                topics.addAll(persistTopics(response.getTopics(), syllabus, lease));
+            } else {
+                String documentText = loadExtractedDocument(syllabus).map(ExtractedDocument::getText).orElse("");
+                fallbackTopicGeneration(textCompactor.compact(documentText), syllabus, topics,
+                        LlmMetrics.TOPIC_BATCH, lease);
+            }
+            return topics;
+        });
+    }
+    
+    /**
+     * Generates the topics of a syllabus, given the compacted document text, while holding its
+     * generation lease. Topics may only be written after {@link TopicGenerationLease#confirm()}.
+     */
+    @FunctionalInterface
+    private interface TopicGenerator {
+        List<Topic> generate(String documentText, Syllabus syllabus, TopicGenerationLease lease);
+    }
+    
+    private static class LeaseLostException extends RuntimeException {
+        LeaseLostException(String message) {
+            super(message);
+        }
+    }
+    
+    /**
+     * A syllabus' topic generation lease held by this caller. It is renewed on a timer while the
+     * holder works, so a long generation keeps it, and confirmed before topics are written, so a
+     * holder whose lease lapsed never persists a second set next to the new holder's.
+     */
+    private final class TopicGenerationLease implements AutoCloseable {
+        private final Long syllabusId;
+        private final String owner;
+        private final ScheduledFuture<?> renewal;
+        private volatile boolean lost;
+        
+        private TopicGenerationLease(Long syllabusId, String owner) {
+            this.syllabusId = syllabusId;
+            this.owner = owner;
+            long periodMs = Math.max(1000, Duration.ofMinutes(generationLeaseMinutes).toMillis() / 3);
+            this.renewal = leaseRenewals.scheduleAtFixedRate(this::renewQuietly, periodMs, periodMs,
+                    TimeUnit.MILLISECONDS);
+        }
+        
+        /**
+         * Extend the lease, failing if another caller has taken it over.
+         */
+        void confirm() {
+            if (!renew()) {
+                throw new LeaseLostException("Lost the topic generation lease of syllabus " + syllabusId);
+            }
+        }
+        
+        private boolean renew() {
+            if (!lost && syllabusRepository.renewTopicGenerationLease(syllabusId, owner,
+                    LocalDateTime.now().plusMinutes(generationLeaseMinutes)) == 0) {
+                lost = true;
+            }
+            return !lost;
+        }
+        
+        private void renewQuietly() {
+            try {
+                if (!renew()) {
+                    logger.warn("Lost the topic generation lease of syllabus {}", syllabusId);
                 }
+            } catch (RuntimeException e) {
+                // The next tick tries again; the lease outlives a few missed renewals
+                logger.warn("Failed to renew the topic generation lease of syllabus {}", syllabusId, e);
             }
+        }
+        
+        void complete() {
+            renewal.cancel(false);
+            if (syllabusRepository.completeTopicGenerationLease(syllabusId, owner, LocalDateTime.now()) == 0) {
+                logger.warn("Topic generation lease of syllabus {} was taken over before it completed", syllabusId);
+            }
+        }
+        
+        @Override
+        public void close() {
+            renewal.cancel(false);
+            syllabusRepository.releaseTopicGenerationLease(syllabusId, owner);
+        }
+    }
+    
+    /**
+     * Generate topics, from the document's outline if it has a clear one and with {@code generator}
+     * otherwise, while holding the syllabus' generation lease.
+     */
+    private List<Topic> generateTopicsOnce(Long syllabusId, TopicGenerator generator) {
+        return withTopicGenerationLease(syllabusId, (syllabus, lease) -> {
+            Optional<ExtractedDocument> document = loadExtractedDocument(syllabus);
+            String extractedText = document.map(ExtractedDocument::getText).orElse("");
 
-            // This is a simplified implementation. In a real-world scenario, 
-            // this would call an AI service to process the text and generate topics
-            List<Topic> generatedTopics = generateTopicsWithAI(extractedText, syllabus);
+            // Neatly structured documents are turned into topics locally; the rest go to the LLM
+            // without page furniture and extraction noise
+            return generateTopicsFromOutline(document, syllabus, lease)
+                    .orElseGet(() -> generator.generate(textCompactor.compact(extractedText), syllabus, lease));
+        });
+    }
+    
+    /**
+     * Work that writes a syllabus' topics under its generation lease.
+     */
+    @FunctionalInterface
+    private interface LeasedTopicWork {
+        List<Topic> run(Syllabus syllabus, TopicGenerationLease lease) throws IOException;
+    }
+    
+    /**
+     * Run {@code work} while holding the syllabus' generation lease. A caller that cannot get the
+     * lease waits for the holder, possibly on another node, and returns the topics it persisted.
+     * So does a caller that gets the lease just after a generation finished, instead of appending a
+     * second set of topics.
+     */
+    private List<Topic> withTopicGenerationLease(Long syllabusId, LeasedTopicWork work) {
+        getSyllabus(syllabusId);
+        LocalDateTime requestedAt = LocalDateTime.now();
+        LocalDateTime waitUntil = requestedAt.plusMinutes(generationWaitTimeoutMinutes);
+        String owner = UUID.randomUUID().toString();
+        
+        while (syllabusRepository.acquireTopicGenerationLease(syllabusId, owner,
+                LocalDateTime.now().plusMinutes(generationLeaseMinutes), LocalDateTime.now()) == 0) {
+            if (LocalDateTime.now().isAfter(waitUntil)) {
+                throw new RuntimeException("Timed out waiting for topic generation of syllabus " + syllabusId);
+            }
+            try {
+                Thread.sleep(generationWaitPollMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for topic generation");
+            }
+            Optional<LocalDateTime> generatedAt = syllabusRepository.findTopicsGeneratedAt(syllabusId);
+            if (generatedAt.isPresent() && generatedRecently(generatedAt.get(), requestedAt)) {
+                return topicRepository.findBySyllabusIdOrderByOrderIndexAsc(syllabusId);
+            }
+        }
+        
+        TopicGenerationLease lease = new TopicGenerationLease(syllabusId, owner);
+        boolean generated = false;
+        try {
+            // Loaded after taking the lease so this caller sees the state the previous holder left
+            Syllabus syllabus = getSyllabus(syllabusId);
+            if (syllabus.getTopicsGeneratedAt() != null && generatedRecently(syllabus.getTopicsGeneratedAt(), requestedAt)) {
+                return topicRepository.findBySyllabusIdOrderByOrderIndexAsc(syllabusId);
+            }
+            List<Topic> generatedTopics = work.run(syllabus, lease);
+            generated = true;
             
             return generatedTopics;
             
         } catch (IOException e) {
             throw new RuntimeException("Failed to generate topics: " + e.getMessage());
+        } finally {
+            if (generated) {
+                lease.complete();
+            } else {
+                lease.close();
+            }
+        }
+    }
+    
+    private boolean generatedRecently(LocalDateTime generatedAt, LocalDateTime requestedAt) {
+        return !generatedAt.isBefore(requestedAt.minusSeconds(regenerationWindowSeconds));
+    }
+    
+    private List<Topic> awaitTopics(CompletableFuture<List<Topic>> generation) {
+        try {
+            return generation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
         }
     }
     
+    /**
+     * Read the syllabus' document from the extracted-text store. Syllabi uploaded before the store
+     * existed are hashed and extracted once here, then linked to the store.
+     *
+     * @return the document, or empty if the syllabus has no readable document
+     */
+    private Optional<ExtractedDocument> loadExtractedDocument(Syllabus syllabus) throws IOException {
+        if (syllabus.getContentHash() != null) {
+            Optional<ExtractedDocument> document = extractedTextStore.find(syllabus.getContentHash());
+            if (document.isPresent()) {
+                return document;
+            }
+        }
+        
+        if (syllabus.getOriginalDocumentUrl() == null) {
+            return Optional.empty();
+        }
+        Path filePath = Paths.get(syllabus.getOriginalDocumentUrl());
+        if (!Files.exists(filePath)) {
+            return Optional.empty();
+        }
+        
+        ExtractedDocument document = extractedTextStore.storeExisting(filePath, syllabus.getDocumentType());
+        syllabus.setContentHash(document.getContentHash());
+        syllabusRepository.save(syllabus);
+        return Optional.of(document);
+    }
+    
     private Syllabus.DocumentType determineDocumentType(String contentType) {
         if (contentType != null) {
             if (contentType.contains("pdf")) {
@@ -173,89 +488,164 @@ public class SyllabusServiceImpl implements SyllabusService {
         return Syllabus.DocumentType.OTHER;
     }
     
-    private String extractTextFromDocument(MultipartFile file, Syllabus.DocumentType documentType) {
-        try {
-            if (documentType == Syllabus.DocumentType.PDF) {
-                try (PDDocument document = PDDocument.load(file.getInputStream())) {
-                    PDFTextStripper pdfStripper = new PDFTextStripper();
-                    return pdfStripper.getText(document);
-                }
-            } else if (documentType == Syllabus.DocumentType.WORD) {
-                try (XWPFDocument document = new XWPFDocument(file.getInputStream());
-                     XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
-                    return extractor.getText();
-                }
-            } else if (documentType == Syllabus.DocumentType.TEXT) {
-                return new String(file.getBytes());
-            }
-            return "";
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to extract text from document: " + e.getMessage());
-        }
-    }
-    
     // Placeholder for AI-based topic generation
     // In a real application, this would integrate with OpenAI API or similar service
     
-    private List<Topic> generateTopicsWithAI(String documentText, Syllabus syllabus) {
+    private List<Topic> generateTopicsWithAI(String documentText, Syllabus syllabus, LlmRequestContext.Priority priority,
+                                             TopicGenerationLease lease) {
         List<Topic> topics = new ArrayList<>();
         
         try {
             // Use the OpenAI service to generate topics
-            TopicGenerationResponse response = openAIService.generateTopicsFromSyllabus(documentText);
+            TopicGenerationResponse response = openAIService.generateTopicsFromSyllabus(documentText,
+                    llmContext(syllabus, priority));
             
             if (response != null && response.getTopics() != null && !response.getTopics().isEmpty()) {
-                LocalDateTime startDate = syllabus.getStartDate() != null ? 
-                    syllabus.getStartDate() : LocalDateTime.now();
-                
-                // Calculate duration between start and end date to evenly distribute topics
-                long daysBetween = syllabus.getEndDate() != null ? 
-                    java.time.Duration.between(startDate, syllabus.getEndDate()).toDays() : 
-                    response.getTopics().size();
-                
-                // If end date is not set or is before start date, default to 1 day per topic
-                if (daysBetween < 1) {
-                    daysBetween = response.getTopics().size();
-                }
-                
-                // Calculate days per topic (at least 1 day)
-                double daysPerTopic = Math.max(1, (double) daysBetween / response.getTopics().size());
-                
-                for (int i = 0; i < response.getTopics().size(); i++) {
-                    TopicDto topicDto = response.getTopics().get(i);
-                    
-                    Topic topic = new Topic();
-                    topic.setTitle(topicDto.getTitle());
-                    topic.setContent(topicDto.getContent());
-                    topic.setEstimatedDurationMinutes(topicDto.getEstimatedDurationMinutes());
-                    topic.setOrderIndex(i);
-                    
-                    // Calculate deadline based on even distribution between start and end dates
-                    LocalDateTime deadline = startDate.plusDays(Math.round(i * daysPerTopic));
-                    topic.setDeadline(deadline);
-                    
-                    topic.setSyllabus(syllabus);
-                    
-                    // Save and add to list
-                    topics.add(topicRepository.save(topic));
-                }
+                topics.addAll(persistTopics(response.getTopics(), syllabus, lease));
             } else {
                 // Fallback to simple topic generation if OpenAI fails
-                fallbackTopicGeneration(documentText, syllabus, topics);
+                fallbackTopicGeneration(documentText, syllabus, topics, LlmMetrics.TOPIC_GENERATION, lease);
             }
+        } catch (LlmRateLimitException | LeaseLostException e) {
+            // Out of quota or a lost lease is not a reason to replace the topics with the placeholder split
+            throw e;
         } catch (Exception e) {
             // Log the error
             System.err.println("Error generating topics with AI: " + e.getMessage());
             e.printStackTrace();
             
             // Fallback to simple topic generation
-            fallbackTopicGeneration(documentText, syllabus, topics);
+            fallbackTopicGeneration(documentText, syllabus, topics, LlmMetrics.TOPIC_GENERATION, lease);
         }
         
         return topics;
     }
     
-    private void fallbackTopicGeneration(String documentText, Syllabus syllabus, List<Topic> topics) {
+    /**
+     * Save generated topics in order, with deadlines spread evenly between the syllabus' start and
+     * end dates (one day per topic without an end date).
+     */
+    private List<Topic> persistTopics(List<TopicDto> topicDtos, Syllabus syllabus, TopicGenerationLease lease) {
+        lease.confirm();
+        List<Topic> topics = new ArrayList<>();
+        LocalDateTime startDate = syllabus.getStartDate() != null ? 
+            syllabus.getStartDate() : LocalDateTime.now();
+        
+        // Calculate duration between start and end date to evenly distribute topics
+        long daysBetween = syllabus.getEndDate() != null ? 
+            java.time.Duration.between(startDate, syllabus.getEndDate()).toDays() : 
+            topicDtos.size();
+        
+        // If end date is not set or is before start date, default to 1 day per topic
+        if (daysBetween < 1) {
+            daysBetween = topicDtos.size();
+        }
+        
+        // Calculate days per topic (at least 1 day)
+        double daysPerTopic = Math.max(1, (double) daysBetween / topicDtos.size());
+        
+        for (int i = 0; i < topicDtos.size(); i++) {
+            TopicDto topicDto = topicDtos.get(i);
+            
+            Topic topic = new Topic();
+            topic.setTitle(topicDto.getTitle());
+            topic.setContent(topicDto.getContent());
+            topic.setEstimatedDurationMinutes(topicDto.getEstimatedDurationMinutes());
+            topic.setOrderIndex(i);
+            
+            // Calculate deadline based on even distribution between start and end dates
+            LocalDateTime deadline = startDate.plusDays(Math.round(i * daysPerTopic));
+            topic.setDeadline(deadline);
+            
+            topic.setSyllabus(syllabus);
+            
+            // Save and add to list
+            topics.add(topicRepository.save(topic));
+        }
+        return topics;
+    }
+    
+    /**
+     * Build topics from the document's own headings when its outline is clear enough, so no LLM
+     * call is needed. The outline was read when the document was extracted.
+     */
+    private Optional<List<Topic>> generateTopicsFromOutline(Optional<ExtractedDocument> document, Syllabus syllabus,
+                                                            TopicGenerationLease lease) {
+        return document.flatMap(extractedTextStore::outlineTopics)
+                .map(topicDtos -> {
+                    llmMetrics.recordSkipped(LlmMetrics.TOPIC_GENERATION, LlmMetrics.SKIPPED_LOCAL_OUTLINE);
+                    return persistTopics(topicDtos, syllabus, lease);
+                });
+    }
+    
+    /**
+     * Persist each topic as the model streams it. Deadlines are provisional (one day per topic)
+     * until the total is known, then spread between the syllabus' start and end dates. The lease is
+     * confirmed before each topic is saved.
+     */
+    private List<Topic> streamTopicsWithAI(String documentText, Syllabus syllabus, TopicGenerationLease lease,
+                                           Consumer<Topic> onTopic) {
+        List<Topic> topics = new ArrayList<>();
+        LocalDateTime startDate = syllabus.getStartDate() != null ? syllabus.getStartDate() : LocalDateTime.now();
+        // The user is watching topics arrive
+        LlmRequestContext context = llmContext(syllabus, LlmRequestContext.Priority.INTERACTIVE);
+        
+        try {
+            openAIService.streamTopicsFromSyllabus(documentText, context, topicDto -> {
+                Topic topic = new Topic();
+                topic.setTitle(topicDto.getTitle());
+                topic.setContent(topicDto.getContent());
+                topic.setEstimatedDurationMinutes(topicDto.getEstimatedDurationMinutes());
+                topic.setOrderIndex(topics.size());
+                topic.setDeadline(startDate.plusDays(topics.size()));
+                topic.setSyllabus(syllabus);
+                
+                lease.confirm();
+                Topic saved = topicRepository.save(topic);
+                topics.add(saved);
+                onTopic.accept(saved);
+            });
+        } catch (LlmRateLimitException | LeaseLostException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            logger.error("Error streaming topics with AI", e);
+        }
+        
+        if (topics.isEmpty()) {
+            fallbackTopicGeneration(documentText, syllabus, topics, LlmMetrics.TOPIC_STREAMING, lease);
+            return topics;
+        }
+        
+        if (syllabus.getEndDate() != null) {
+            long daysBetween = java.time.Duration.between(startDate, syllabus.getEndDate()).toDays();
+            if (daysBetween >= 1) {
+                double daysPerTopic = Math.max(1, (double) daysBetween / topics.size());
+                for (int i = 0; i < topics.size(); i++) {
+                    topics.get(i).setDeadline(startDate.plusDays(Math.round(i * daysPerTopic)));
+                }
+                lease.confirm();
+                return topicRepository.saveAll(topics);
+            }
+        }
+        return topics;
+    }
+    
+    // LLM quota goes to the most urgent class first, then to the syllabus whose course starts or whose
+    // next topic is due soonest, then fairly between the owners of the syllabi being processed
+    private LlmRequestContext llmContext(Syllabus syllabus, LlmRequestContext.Priority priority) {
+        LocalDateTime dueBy = syllabus.getStartDate();
+        LocalDateTime earliestDeadline = syllabus.getId() != null ? topicRepository.findEarliestDeadline(syllabus.getId()) : null;
+        if (earliestDeadline != null && (dueBy == null || earliestDeadline.isBefore(dueBy))) {
+            dueBy = earliestDeadline;
+        }
+        return LlmRequestContext.of(syllabus.getUser() != null ? syllabus.getUser().getId() : null, priority, dueBy);
+    }
+    
+    private void fallbackTopicGeneration(String documentText, Syllabus syllabus, List<Topic> topics, String operation,
+                                         TopicGenerationLease lease) {
+        lease.confirm();
+        llmMetrics.recordFallback(operation);
+        
         // Simple approach: Split by paragraphs or sections
         String[] paragraphs = documentText.split("\n\n");
         
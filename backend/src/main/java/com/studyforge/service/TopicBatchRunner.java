@@ -0,0 +1,484 @@
+package com.studyforge.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studyforge.dto.TopicDto;
+import com.studyforge.dto.TopicGenerationResponse;
+import com.studyforge.model.LlmBatch;
+import com.studyforge.model.ProcessingJob;
+import com.studyforge.model.Topic;
+import com.studyforge.repository.LlmBatchRepository;
+import com.studyforge.repository.ProcessingJobRepository;
+import com.studyforge.service.llm.LlmBatchClient;
+import com.studyforge.service.llm.LlmHttpException;
+import com.studyforge.service.llm.LlmRequestContext;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Runs GENERATE_TOPICS_BATCH jobs through the provider's batch API.
+ *
+ * Queued batch jobs are collected periodically. For each syllabus the chunk requests are written to
+ * one JSONL file, which is uploaded and submitted as a single batch. The jobs then stay RUNNING
+ * without owner or lease while the batch is pending. Pending batches are polled. Once a batch
+ * finishes, one node claims it, downloads the output, and saves each syllabus' merged topics.
+ *
+ * Like the JobRunner, this runner renews the leases of the jobs it builds or collects and writes
+ * every outcome only while its claim still holds the job. A collector claims each job before saving
+ * its topics, so a batch that is collected twice never saves a syllabus' topics twice.
+ *
+ * Jobs whose requests all failed inside the batch are requeued as background GENERATE_TOPICS
+ * jobs, so a failed or expired batch does not lose the work.
+ *
+ * Building, uploading and collecting batches can take minutes, so the scheduled ticks only hand
+ * the work to this runner's own threads and never hold up the shared scheduler thread that also
+ * drives the job workers. A tick is skipped while the previous round of the same kind still runs.
+ */
+@Component
+public class TopicBatchRunner {
+    private static final Logger logger = LoggerFactory.getLogger(TopicBatchRunner.class);
+
+    private static final List<String> BATCH_JOB_TYPES = List.of(ProcessingJob.JobType.GENERATE_TOPICS_BATCH.name());
+
+    // custom_id of a request line: the job it belongs to and the chunk's position in the document
+    private static final Pattern CUSTOM_ID = Pattern.compile("job-(\\d+)-(\\d+)");
+
+    private final ProcessingJobRepository processingJobRepository;
+    private final LlmBatchRepository llmBatchRepository;
+    private final SyllabusService syllabusService;
+    private final OpenAIService openAIService;
+    private final LlmBatchClient llmBatchClient;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final String nodeId = "batch-" + UUID.randomUUID();
+    private final ExecutorService batchWorkers;
+    private final AtomicBoolean submitting = new AtomicBoolean();
+    private final AtomicBoolean polling = new AtomicBoolean();
+    // Jobs this node builds or collects, by id, with the attempt number of their claim
+    private final Map<Long, Integer> heldJobs = new ConcurrentHashMap<>();
+    // The batch this node is collecting, if any
+    private volatile Long collectingBatchId;
+
+    @Value("${openai.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${openai.batch.max-jobs:500}")
+    private int maxJobs;
+
+    // The provider accepts input files of up to 200 MB
+    @Value("${openai.batch.max-file-bytes:100000000}")
+    private long maxFileBytes;
+
+    @Value("${studyforge.jobs.lease-minutes:15}")
+    private long leaseMinutes;
+
+    @Value("${studyforge.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    public TopicBatchRunner(ProcessingJobRepository processingJobRepository, LlmBatchRepository llmBatchRepository,
+                            SyllabusService syllabusService, OpenAIService openAIService,
+                            LlmBatchClient llmBatchClient, ObjectMapper objectMapper,
+                            TransactionTemplate transactionTemplate) {
+        this.processingJobRepository = processingJobRepository;
+        this.llmBatchRepository = llmBatchRepository;
+        this.syllabusService = syllabusService;
+        this.openAIService = openAIService;
+        this.llmBatchClient = llmBatchClient;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        // One thread for submitting and one for polling, so a large upload does not delay collection
+        AtomicInteger threadCount = new AtomicInteger();
+        this.batchWorkers = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "topic-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Claimed jobs and batches are picked up again once their leases expire
+        batchWorkers.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${openai.batch.submit-interval-ms:60000}")
+    public void submitQueued() {
+        if (enabled) {
+            runExclusively(submitting, this::submitQueuedJobs);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${openai.batch.poll-interval-ms:30000}")
+    public void pollBatches() {
+        if (enabled) {
+            runExclusively(polling, this::collectFinishedBatches);
+        }
+    }
+
+    /**
+     * Extend the leases of the jobs this node is building or collecting, and of the batch it is
+     * collecting, so a long round is not handed to another node while this one still works on it.
+     */
+    @Scheduled(fixedDelayString = "${studyforge.jobs.heartbeat-interval-ms:60000}")
+    public void renewLeases() {
+        Long batchId = collectingBatchId;
+        if (heldJobs.isEmpty() && batchId == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            heldJobs.forEach((id, attempts) -> {
+                if (processingJobRepository.renewOwnedLease(id, nodeId, attempts,
+                        ProcessingJob.JobStatus.RUNNING, now.plusMinutes(leaseMinutes)) == 0) {
+                    logger.warn("Batch job {} lost its lease; its outcome will be discarded", id);
+                }
+            });
+            if (batchId != null) {
+                llmBatchRepository.renewCollection(batchId, LlmBatch.BatchStatus.COLLECTING, now);
+            }
+        });
+    }
+
+    private void runExclusively(AtomicBoolean running, Runnable task) {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            batchWorkers.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.error("Topic batch round failed", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Submit the queued batch jobs as one provider batch.
+     */
+    private void submitQueuedJobs() {
+        List<ProcessingJob> claimed = transactionTemplate.execute(status -> claim());
+        if (claimed.isEmpty()) {
+            return;
+        }
+        claimed.forEach(job -> heldJobs.put(job.getId(), job.getAttempts()));
+        try {
+            submit(claimed);
+        } finally {
+            claimed.forEach(job -> heldJobs.remove(job.getId()));
+        }
+    }
+
+    private void submit(List<ProcessingJob> claimed) {
+        ByteArrayOutputStream jsonl = new ByteArrayOutputStream();
+        List<ProcessingJob> batched = new ArrayList<>();
+        int requestCount = 0;
+        for (ProcessingJob job : claimed) {
+            try {
+                Optional<String> prompt = syllabusService.topicGenerationPrompt(job.getSyllabusId());
+                if (prompt.isEmpty()) {
+                    // The outline gives the topics locally, there is nothing to send
+                    succeed(job, syllabusService.generateTopicsFromSyllabus(job.getSyllabusId(),
+                            LlmRequestContext.Priority.BACKGROUND));
+                    continue;
+                }
+                List<Map<String, Object>> requests = openAIService.createBatchRequests(prompt.get());
+                if (requests.isEmpty()) {
+                    succeed(job, syllabusService.saveGeneratedTopics(job.getSyllabusId(), new TopicGenerationResponse()));
+                    continue;
+                }
+                byte[] lines = requestLines(job, requests);
+                if (!batched.isEmpty() && jsonl.size() + lines.length > maxFileBytes) {
+                    // Goes into the next batch; not having fit is no failed attempt
+                    release(job);
+                    continue;
+                }
+                jsonl.write(lines);
+                batched.add(job);
+                requestCount += requests.size();
+                job.setPayload(objectMapper.writeValueAsString(Map.of("requestCount", requests.size())));
+            } catch (Exception e) {
+                fail(job, e);
+            }
+        }
+        if (batched.isEmpty()) {
+            return;
+        }
+
+        try {
+            String inputFileId = llmBatchClient.uploadRequests(jsonl.toByteArray());
+            LlmBatchClient.BatchStatus status = llmBatchClient.createBatch(inputFileId);
+            int requests = requestCount;
+            int submitted = transactionTemplate.execute(tx -> {
+                LlmBatch batch = new LlmBatch();
+                batch.setProviderBatchId(status.id());
+                batch.setInputFileId(inputFileId);
+                batch.setProviderStatus(status.status());
+                batch.setRequestCount(requests);
+                LlmBatch saved = llmBatchRepository.save(batch);
+                LocalDateTime now = LocalDateTime.now();
+                int jobCount = 0;
+                for (ProcessingJob job : batched) {
+                    // No lease while the provider works on it; the batch itself is polled instead
+                    heldJobs.remove(job.getId());
+                    if (processingJobRepository.submitOwned(job.getId(), nodeId, job.getAttempts(),
+                            ProcessingJob.JobStatus.RUNNING, saved.getId(), job.getPayload(), now) == 1) {
+                        jobCount++;
+                    } else {
+                        logger.warn("Batch job {} lost its lease while its batch was built; its requests are ignored",
+                                job.getId());
+                    }
+                }
+                saved.setJobCount(jobCount);
+                return jobCount;
+            });
+            logger.info("Submitted batch {} with {} requests for {} syllabi, {} bytes",
+                    status.id(), requestCount, submitted, jsonl.size());
+        } catch (LlmHttpException e) {
+            logger.warn("Failed to submit topic batch, requeueing {} jobs: {}", batched.size(), e.getMessage());
+            for (ProcessingJob job : batched) {
+                if (job.getAttempts() < maxAttempts) {
+                    requeue(job);
+                } else {
+                    fail(job, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check pending batches and collect the results of finished ones.
+     */
+    private void collectFinishedBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(tx -> llmBatchRepository.releaseStaleCollections(
+                LlmBatch.BatchStatus.SUBMITTED, LlmBatch.BatchStatus.COLLECTING, now.minusMinutes(leaseMinutes), now));
+
+        for (LlmBatch batch : llmBatchRepository.findByStatusOrderByCreatedAt(LlmBatch.BatchStatus.SUBMITTED)) {
+            LlmBatchClient.BatchStatus status;
+            try {
+                status = llmBatchClient.getBatch(batch.getProviderBatchId());
+            } catch (LlmHttpException e) {
+                logger.warn("Failed to poll batch {}: {}", batch.getProviderBatchId(), e.getMessage());
+                continue;
+            }
+            if (!status.isFinished()) {
+                if (!status.status().equals(batch.getProviderStatus())) {
+                    transactionTemplate.executeWithoutResult(tx -> llmBatchRepository.updateProviderStatus(batch.getId(),
+                            LlmBatch.BatchStatus.SUBMITTED, status.status(), LocalDateTime.now()));
+                }
+                continue;
+            }
+            Integer claimed = transactionTemplate.execute(tx -> llmBatchRepository.claimForCollection(batch.getId(),
+                    LlmBatch.BatchStatus.SUBMITTED, LlmBatch.BatchStatus.COLLECTING, LocalDateTime.now()));
+            if (claimed != null && claimed == 1) {
+                collectingBatchId = batch.getId();
+                try {
+                    collect(batch, status);
+                } finally {
+                    collectingBatchId = null;
+                }
+            }
+        }
+    }
+
+    private List<ProcessingJob> claim() {
+        // Every batch job is background work, so only the due date orders them
+        List<ProcessingJob> jobs = processingJobRepository.lockQueued(BATCH_JOB_TYPES, LocalDateTime.now(), maxJobs);
+        LocalDateTime now = LocalDateTime.now();
+        for (ProcessingJob job : jobs) {
+            job.setStatus(ProcessingJob.JobStatus.RUNNING);
+            job.setLockedBy(nodeId);
+            // Held while the requests are built and uploaded; a crash here requeues the job
+            job.setLeaseExpiresAt(now.plusMinutes(leaseMinutes));
+            job.setStartedAt(now);
+            job.setAttempts(job.getAttempts() + 1);
+        }
+        return processingJobRepository.saveAll(jobs);
+    }
+
+    private byte[] requestLines(ProcessingJob job, List<Map<String, Object>> requests) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (int i = 0; i < requests.size(); i++) {
+            Map<String, Object> line = Map.of(
+                    "custom_id", "job-" + job.getId() + "-" + i,
+                    "method", "POST",
+                    "url", LlmBatchClient.CHAT_COMPLETIONS_URL,
+                    "body", requests.get(i));
+            lines.write(objectMapper.writeValueAsBytes(line));
+            lines.write('\n');
+        }
+        return lines.toByteArray();
+    }
+
+    private void collect(LlmBatch batch, LlmBatchClient.BatchStatus status) {
+        logger.info("Collecting batch {} ({})", status.id(), status.status());
+        Map<Long, Map<Integer, JsonNode>> completions = new HashMap<>();
+        int failedRequests = 0;
+        try {
+            if (status.outputFileId() != null) {
+                llmBatchClient.readFile(status.outputFileId(), line -> {
+                    Matcher customId = CUSTOM_ID.matcher(line.path("custom_id").asText());
+                    JsonNode response = line.path("response");
+                    if (customId.matches() && response.path("status_code").asInt() == 200) {
+                        completions.computeIfAbsent(Long.parseLong(customId.group(1)), id -> new HashMap<>())
+                                .put(Integer.parseInt(customId.group(2)), response.path("body"));
+                    }
+                });
+            }
+            if (status.errorFileId() != null) {
+                int[] errors = {0};
+                llmBatchClient.readFile(status.errorFileId(), line -> errors[0]++);
+                failedRequests = errors[0];
+            }
+        } catch (LlmHttpException e) {
+            // Leave the batch to be collected again on a later poll
+            logger.warn("Failed to download results of batch {}: {}", status.id(), e.getMessage());
+            transactionTemplate.executeWithoutResult(tx -> llmBatchRepository.releaseCollection(batch.getId(),
+                    LlmBatch.BatchStatus.COLLECTING, LlmBatch.BatchStatus.SUBMITTED, LocalDateTime.now()));
+            return;
+        }
+
+        List<ProcessingJob> jobs = processingJobRepository.findByBatchIdAndStatus(batch.getId(),
+                ProcessingJob.JobStatus.RUNNING);
+        int collected = 0;
+        int requeued = 0;
+        for (ProcessingJob job : jobs) {
+            if (!claimForCollection(batch, job)) {
+                // Already taken by an earlier collection of this batch
+                continue;
+            }
+            collected++;
+            try {
+                Map<Integer, JsonNode> answered = completions.getOrDefault(job.getId(), Map.of());
+                if (answered.isEmpty()) {
+                    // Nothing came back for this syllabus; generate it through the regular job queue instead
+                    requeueAs(job, ProcessingJob.JobType.GENERATE_TOPICS);
+                    requeued++;
+                    continue;
+                }
+                List<JsonNode> ordered = new ArrayList<>();
+                for (int i = 0; i < requestCount(job); i++) {
+                    ordered.add(answered.get(i));
+                }
+                TopicGenerationResponse response = openAIService.topicsFromBatchResults(ordered);
+                succeed(job, syllabusService.saveGeneratedTopics(job.getSyllabusId(), response));
+            } catch (Exception e) {
+                fail(job, e);
+            } finally {
+                heldJobs.remove(job.getId());
+            }
+        }
+
+        LlmBatch.BatchStatus finished = "completed".equals(status.status())
+                ? LlmBatch.BatchStatus.COMPLETED
+                : LlmBatch.BatchStatus.FAILED;
+        int updated = transactionTemplate.execute(tx -> llmBatchRepository.finishCollection(batch.getId(),
+                LlmBatch.BatchStatus.COLLECTING, finished, status.status(), status.outputFileId(),
+                status.errorFileId(), LocalDateTime.now()));
+        if (updated == 0) {
+            logger.warn("Batch {} was handed to another collector while this node collected it", status.id());
+        }
+        logger.info("Batch {} finished: {} jobs collected, {} failed requests, {} jobs requeued for regular generation",
+                status.id(), collected, failedRequests, requeued);
+    }
+
+    // Takes a job of the batch for this collection, with a lease of its own while its topics are saved
+    private boolean claimForCollection(LlmBatch batch, ProcessingJob job) {
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = transactionTemplate.execute(tx -> processingJobRepository.claimBatched(job.getId(), batch.getId(),
+                ProcessingJob.JobStatus.RUNNING, nodeId, now.plusMinutes(leaseMinutes), now));
+        if (claimed == 0) {
+            return false;
+        }
+        heldJobs.put(job.getId(), job.getAttempts());
+        return true;
+    }
+
+    private int requestCount(ProcessingJob job) throws IOException {
+        return objectMapper.readTree(job.getPayload()).path("requestCount").asInt();
+    }
+
+    // The outcomes below are only written while this node's claim still holds the job
+
+    private void succeed(ProcessingJob job, List<Topic> topics) throws IOException {
+        List<TopicDto> topicDtos = topics.stream()
+                .map(TopicDto::new)
+                .collect(Collectors.toList());
+        String result = objectMapper.writeValueAsString(topicDtos);
+        complete(job, ProcessingJob.JobStatus.SUCCEEDED, result, null);
+    }
+
+    private void fail(ProcessingJob job, Exception e) {
+        logger.error("Batch job {} failed", job.getId(), e);
+        String message = e.getMessage();
+        complete(job, ProcessingJob.JobStatus.FAILED, null,
+                message != null && message.length() > 2000 ? message.substring(0, 2000) : message);
+    }
+
+    private void complete(ProcessingJob job, ProcessingJob.JobStatus outcome, String result, String errorMessage) {
+        heldJobs.remove(job.getId());
+        int completed = transactionTemplate.execute(tx -> processingJobRepository.completeOwned(job.getId(), nodeId,
+                job.getAttempts(), ProcessingJob.JobStatus.RUNNING, outcome, job.getSyllabusId(), result, errorMessage,
+                LocalDateTime.now()));
+        warnIfLost(job, completed, outcome.name());
+    }
+
+    private void requeue(ProcessingJob job) {
+        heldJobs.remove(job.getId());
+        int requeued = transactionTemplate.execute(tx -> processingJobRepository.requeueOwned(job.getId(), nodeId,
+                job.getAttempts(), ProcessingJob.JobStatus.RUNNING, ProcessingJob.JobStatus.QUEUED, LocalDateTime.now()));
+        warnIfLost(job, requeued, "requeue");
+    }
+
+    private void requeueAs(ProcessingJob job, ProcessingJob.JobType type) {
+        heldJobs.remove(job.getId());
+        int requeued = transactionTemplate.execute(tx -> processingJobRepository.requeueOwnedAs(job.getId(), nodeId,
+                job.getAttempts(), ProcessingJob.JobStatus.RUNNING, ProcessingJob.JobStatus.QUEUED, type,
+                ProcessingJob.Priority.BACKGROUND, LocalDateTime.now()));
+        warnIfLost(job, requeued, "requeue");
+    }
+
+    private void release(ProcessingJob job) {
+        heldJobs.remove(job.getId());
+        int released = transactionTemplate.execute(tx -> processingJobRepository.releaseOwned(job.getId(), nodeId,
+                job.getAttempts(), ProcessingJob.JobStatus.RUNNING, ProcessingJob.JobStatus.QUEUED, LocalDateTime.now()));
+        warnIfLost(job, released, "release");
+    }
+
+    private void warnIfLost(ProcessingJob job, int updated, String outcome) {
+        if (updated == 0) {
+            logger.warn("Batch job {} lost its lease; discarding its {} outcome", job.getId(), outcome);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.studyforge.service.grading;
+
+import com.studyforge.model.Question;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable answer key of one assignment, compiled once and shared by every submission.
+ *
+ * Questions are held in parallel arrays sorted by question id. The option ids, the correct option
+ * ids and the accepted answer forms of question {@code i} are the slices
+ * {@code [choiceOffsets[i], choiceOffsets[i + 1])}, {@code [optionOffsets[i], optionOffsets[i + 1])}
+ * and {@code [formOffsets[i], formOffsets[i + 1])} of flat arrays, each slice sorted so an answer
+ * is checked with a binary search.
+ *
+ * An answer is read as option ids only when every number in it is an option of the question;
+ * otherwise it is compared as text, so an option whose text is a number, like "1990", can be
+ * answered with its text.
+ */
+public final class AnswerKey {
+
+    private static final Pattern SEPARATORS = Pattern.compile("\\s*,\\s*");
+    private static final Pattern EDGE_PUNCTUATION = Pattern.compile("^[\\p{Punct}\\s]+|[\\p{Punct}\\s]+$");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern ALTERNATIVES = Pattern.compile("\\s*\\|\\s*");
+
+    private final long assignmentId;
+    private final long[] questionIds;
+    private final int[] points;
+    private final byte[] types;
+    private final int[] choiceOffsets;
+    private final long[] choiceIds;
+    private final int[] optionOffsets;
+    private final long[] correctOptionIds;
+    private final int[] formOffsets;
+    private final String[] acceptedForms;
+    private final int maxPoints;
+
+    /**
+     * Outcome of grading one submission.
+     *
+     * @param questions every question of the assignment in id order, with a null answer if it was not answered
+     */
+    public record Result(int earnedPoints, int maxPoints, List<QuestionResult> questions) {
+    }
+
+    /**
+     * @param correct null for questions that cannot be graded automatically, such as essays
+     */
+    public record QuestionResult(long questionId, String answer, Boolean correct) {
+    }
+
+    private AnswerKey(long assignmentId, long[] questionIds, int[] points, byte[] types, int[] choiceOffsets,
+                      long[] choiceIds, int[] optionOffsets, long[] correctOptionIds, int[] formOffsets,
+                      String[] acceptedForms) {
+        this.assignmentId = assignmentId;
+        this.questionIds = questionIds;
+        this.points = points;
+        this.types = types;
+        this.choiceOffsets = choiceOffsets;
+        this.choiceIds = choiceIds;
+        this.optionOffsets = optionOffsets;
+        this.correctOptionIds = correctOptionIds;
+        this.formOffsets = formOffsets;
+        this.acceptedForms = acceptedForms;
+        this.maxPoints = Arrays.stream(points).sum();
+    }
+
+    public long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public int getMaxPoints() {
+        return maxPoints;
+    }
+
+    public int size() {
+        return questionIds.length;
+    }
+
+    /**
+     * Grade a submission. Answers to questions that are not part of this assignment are ignored; if a
+     * question is answered twice, the first answer counts.
+     */
+    public Result grade(List<Long> questionIds, List<String> answers) {
+        String[] submitted = new String[this.questionIds.length];
+        for (int i = 0; i < questionIds.size() && i < answers.size(); i++) {
+            Long questionId = questionIds.get(i);
+            int index = questionId != null ? Arrays.binarySearch(this.questionIds, questionId) : -1;
+            if (index >= 0 && submitted[index] == null) {
+                submitted[index] = answers.get(i) != null ? answers.get(i) : "";
+            }
+        }
+
+        int earned = 0;
+        List<QuestionResult> results = new ArrayList<>(this.questionIds.length);
+        for (int i = 0; i < this.questionIds.length; i++) {
+            Boolean correct = isCorrect(i, submitted[i] != null ? submitted[i] : "");
+            if (Boolean.TRUE.equals(correct)) {
+                earned += points[i];
+            }
+            results.add(new QuestionResult(this.questionIds[i], submitted[i], correct));
+        }
+        return new Result(earned, maxPoints, results);
+    }
+
+    private Boolean isCorrect(int question, String answer) {
+        Question.QuestionType type = type(question);
+        if (type == Question.QuestionType.ESSAY) {
+            return null;
+        }
+        int optionsFrom = optionOffsets[question];
+        int optionsTo = optionOffsets[question + 1];
+        if (optionsTo > optionsFrom) {
+            long[] chosen = optionIds(answer);
+            if (chosen != null && areChoices(question, chosen)) {
+                return Arrays.equals(chosen, 0, chosen.length, correctOptionIds, optionsFrom, optionsTo);
+            }
+        }
+        int formsFrom = formOffsets[question];
+        int formsTo = formOffsets[question + 1];
+        if (formsTo == formsFrom) {
+            // Nothing to compare a free-text answer with
+            return optionsTo > optionsFrom ? Boolean.FALSE : null;
+        }
+        return Arrays.binarySearch(acceptedForms, formsFrom, formsTo, normalize(answer, type)) >= 0;
+    }
+
+    private boolean areChoices(int question, long[] ids) {
+        for (long id : ids) {
+            if (Arrays.binarySearch(choiceIds, choiceOffsets[question], choiceOffsets[question + 1], id) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Question.QuestionType type(int question) {
+        return types[question] < 0 ? null : Question.QuestionType.values()[types[question]];
+    }
+
+    /**
+     * @return the sorted option ids of an answer like "12" or "12, 15", or null if it is not made of ids
+     */
+    private static long[] optionIds(String answer) {
+        String trimmed = answer.strip();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        String[] parts = SEPARATORS.split(trimmed);
+        long[] ids = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                ids[i] = Long.parseLong(parts[i]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        Arrays.sort(ids);
+        return Arrays.stream(ids).distinct().toArray();
+    }
+
+    /**
+     * Canonical form of a free-text answer: compatibility-normalized, lower case, single spaces, no
+     * leading or trailing punctuation. True/false answers also accept t/f and yes/no.
+     */
+    static String normalize(String answer, Question.QuestionType type) {
+        String normalized = Normalizer.normalize(answer, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        normalized = WHITESPACE.matcher(EDGE_PUNCTUATION.matcher(normalized).replaceAll("")).replaceAll(" ");
+        if (type == Question.QuestionType.TRUE_FALSE) {
+            switch (normalized) {
+                case "t", "yes", "y" -> normalized = "true";
+                case "f", "no", "n" -> normalized = "false";
+                default -> { }
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * Collects the questions of one assignment; {@link #build()} compiles them into a key.
+     */
+    public static final class Builder {
+        private final long assignmentId;
+        private final List<Entry> entries = new ArrayList<>();
+
+        private record Entry(long questionId, int points, Question.QuestionType type, long[] choiceIds,
+                             long[] correctOptionIds, String[] acceptedForms) {
+        }
+
+        public Builder(long assignmentId) {
+            this.assignmentId = assignmentId;
+        }
+
+        /**
+         * @param points the question's points, at least 1 when not set
+         * @param optionIds ids of all options of the question
+         * @param correctOptionIds ids of the options marked correct
+         * @param correctOptionTexts texts of the options marked correct
+         * @param correctAnswer the expected free-text answer; alternatives may be separated by '|'
+         */
+        public Builder question(long questionId, Integer points, Question.QuestionType type, List<Long> optionIds,
+                                List<Long> correctOptionIds, List<String> correctOptionTexts, String correctAnswer) {
+            long[] choiceIds = optionIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+            long[] correctIds = correctOptionIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+            List<String> forms = new ArrayList<>();
+            if (correctAnswer != null && !correctAnswer.isBlank()) {
+                for (String alternative : ALTERNATIVES.split(correctAnswer.strip())) {
+                    forms.add(normalize(alternative, type));
+                }
+            }
+            // An option's text is an unambiguous answer only when it is the single correct option
+            if (correctOptionTexts.size() == 1) {
+                forms.add(normalize(correctOptionTexts.get(0), type));
+            }
+            String[] acceptedForms = forms.stream().filter(form -> !form.isEmpty()).sorted().distinct().toArray(String[]::new);
+            entries.add(new Entry(questionId, points != null && points > 0 ? points : 1, type, choiceIds, correctIds,
+                    acceptedForms));
+            return this;
+        }
+
+        public AnswerKey build() {
+            entries.sort((a, b) -> Long.compare(a.questionId(), b.questionId()));
+            int count = entries.size();
+            long[] questionIds = new long[count];
+            int[] points = new int[count];
+            byte[] types = new byte[count];
+            int[] choiceOffsets = new int[count + 1];
+            int[] optionOffsets = new int[count + 1];
+            int[] formOffsets = new int[count + 1];
+            for (int i = 0; i < count; i++) {
+                Entry entry = entries.get(i);
+                questionIds[i] = entry.questionId();
+                points[i] = entry.points();
+                types[i] = entry.type() != null ? (byte) entry.type().ordinal() : -1;
+                choiceOffsets[i + 1] = choiceOffsets[i] + entry.choiceIds().length;
+                optionOffsets[i + 1] = optionOffsets[i] + entry.correctOptionIds().length;
+                formOffsets[i + 1] = formOffsets[i] + entry.acceptedForms().length;
+            }
+            long[] choiceIds = new long[choiceOffsets[count]];
+            long[] correctOptionIds = new long[optionOffsets[count]];
+            String[] acceptedForms = new String[formOffsets[count]];
+            for (int i = 0; i < count; i++) {
+                Entry entry = entries.get(i);
+                System.arraycopy(entry.choiceIds(), 0, choiceIds, choiceOffsets[i], entry.choiceIds().length);
+                System.arraycopy(entry.correctOptionIds(), 0, correctOptionIds, optionOffsets[i], entry.correctOptionIds().length);
+                System.arraycopy(entry.acceptedForms(), 0, acceptedForms, formOffsets[i], entry.acceptedForms().length);
+            }
+            return new AnswerKey(assignmentId, questionIds, points, types, choiceOffsets, choiceIds, optionOffsets,
+                    correctOptionIds, formOffsets, acceptedForms);
+        }
+    }
+}
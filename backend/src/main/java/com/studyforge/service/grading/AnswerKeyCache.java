@@ -0,0 +1,140 @@
+package com.studyforge.service.grading;
+
+import com.studyforge.repository.AssignmentRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory LRU cache of compiled {@link AnswerKey}s, so a burst of submissions for the same quiz
+ * reads the key from the database once.
+ *
+ * A key is compiled from two scalar queries, without loading the question and option entities. A
+ * cached key does not prove the assignment still exists: another node may have deleted it, which
+ * the foreign keys of the recorded attempt catch.
+ * Concurrent misses for the same assignment share one compilation. Keys are dropped when their
+ * assignment is edited or deleted on this node; other nodes pick up edits once the entry expires.
+ * A compilation that overlaps an invalidation may have read the old rows, so its key is handed
+ * to the callers already waiting for it but not cached.
+ */
+@Component
+public class AnswerKeyCache {
+
+    private final AssignmentRepository assignmentRepository;
+    private final Map<Long, CachedKey> keys;
+    private final Map<Long, CompletableFuture<AnswerKey>> compilations = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    // Bumped by every invalidation, guarded by keys
+    private long invalidations;
+
+    private record CachedKey(AnswerKey key, long expiresAt) {
+    }
+
+    public AnswerKeyCache(AssignmentRepository assignmentRepository,
+                          @Value("${studyforge.grading.key-cache-max-entries:1000}") int maxEntries,
+                          @Value("${studyforge.grading.key-cache-ttl-minutes:60}") long ttlMinutes) {
+        this.assignmentRepository = assignmentRepository;
+        this.ttlNanos = Duration.ofMinutes(ttlMinutes).toNanos();
+        this.keys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedKey> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public AnswerKey get(Long assignmentId) {
+        long now = System.nanoTime();
+        synchronized (keys) {
+            CachedKey cached = keys.get(assignmentId);
+            if (cached != null) {
+                if (cached.expiresAt() - now > 0) {
+                    return cached.key();
+                }
+                keys.remove(assignmentId);
+            }
+        }
+
+        CompletableFuture<AnswerKey> compilation = new CompletableFuture<>();
+        CompletableFuture<AnswerKey> inFlight = compilations.putIfAbsent(assignmentId, compilation);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            long invalidationsBefore;
+            synchronized (keys) {
+                invalidationsBefore = invalidations;
+            }
+            AnswerKey key = compile(assignmentId);
+            synchronized (keys) {
+                if (invalidations == invalidationsBefore) {
+                    keys.put(assignmentId, new CachedKey(key, System.nanoTime() + ttlNanos));
+                }
+            }
+            compilation.complete(key);
+        } catch (RuntimeException e) {
+            compilation.completeExceptionally(e);
+        } finally {
+            compilations.remove(assignmentId, compilation);
+        }
+        return await(compilation);
+    }
+
+    public void invalidate(Long assignmentId) {
+        synchronized (keys) {
+            keys.remove(assignmentId);
+            invalidations++;
+        }
+        // Later misses compile afresh instead of joining a compilation that may predate the edit
+        compilations.remove(assignmentId);
+    }
+
+    private AnswerKey compile(Long assignmentId) {
+        Map<Long, List<Long>> optionIds = new HashMap<>();
+        Map<Long, List<Long>> correctOptionIds = new HashMap<>();
+        Map<Long, List<String>> correctOptionTexts = new HashMap<>();
+        for (AssignmentRepository.AnswerKeyOption option : assignmentRepository.findAnswerKeyOptions(assignmentId)) {
+            optionIds.computeIfAbsent(option.getQuestionId(), id -> new ArrayList<>()).add(option.getId());
+            if (Boolean.TRUE.equals(option.getCorrect())) {
+                correctOptionIds.computeIfAbsent(option.getQuestionId(), id -> new ArrayList<>()).add(option.getId());
+                correctOptionTexts.computeIfAbsent(option.getQuestionId(), id -> new ArrayList<>()).add(option.getText());
+            }
+        }
+
+        List<AssignmentRepository.AnswerKeyQuestion> questions = assignmentRepository.findAnswerKeyQuestions(assignmentId);
+        if (questions.isEmpty() && !assignmentRepository.existsById(assignmentId)) {
+            throw new EntityNotFoundException("Assignment not found with id: " + assignmentId);
+        }
+
+        AnswerKey.Builder builder = new AnswerKey.Builder(assignmentId);
+        for (AssignmentRepository.AnswerKeyQuestion question : questions) {
+            builder.question(question.getId(), question.getPoints(), question.getType(),
+                    optionIds.getOrDefault(question.getId(), List.of()),
+                    correctOptionIds.getOrDefault(question.getId(), List.of()),
+                    correctOptionTexts.getOrDefault(question.getId(), List.of()),
+                    question.getCorrectAnswer());
+        }
+        return builder.build();
+    }
+
+    private AnswerKey await(CompletableFuture<AnswerKey> compilation) {
+        try {
+            return compilation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.studyforge.service.llm;
+
+/**
+ * The parts of a chat completion (or of one streamed chunk) the service uses: the first choice's
+ * content, decoded into {@code T}, and the reported usage.
+ *
+ * @param content the decoded content, or null if the choice carried none
+ * @param finishReason why the model stopped, e.g. {@code stop} or {@code length}; null while streaming
+ * @param usage the token usage, or null if the provider did not report it
+ */
+public record ChatCompletion<T>(String id, String model, T content, String finishReason, LlmUsage usage) {
+}
@@ -0,0 +1,134 @@
+package com.studyforge.service.llm;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads chat completion responses in a single streaming pass over the HTTP body.
+ *
+ * Only the first choice and the usage are decoded; every other field is skipped without being
+ * materialized. The model's JSON content is handed to a {@link ContentReader} straight from the
+ * parser's text buffer, so neither the response nor the content is ever held as a tree or map.
+ */
+public class ChatCompletionParser {
+
+    /**
+     * Decodes the JSON document the model wrote as its message content.
+     */
+    @FunctionalInterface
+    public interface ContentReader<T> {
+        T read(JsonParser content) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ValueReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    private final ObjectMapper objectMapper;
+
+    public ChatCompletionParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Parse a complete (non-streamed) chat completion whose message content is JSON.
+     */
+    public <T> ChatCompletion<T> parse(InputStream body, ContentReader<T> contentReader) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            return read(parser, "message", text -> {
+                try (JsonParser content = objectMapper.getFactory().createParser(
+                        text.getTextCharacters(), text.getTextOffset(), text.getTextLength())) {
+                    return contentReader.read(content);
+                }
+            });
+        }
+    }
+
+    /**
+     * Parse the data of one streamed chat completion chunk. The content is the text delta.
+     */
+    public ChatCompletion<String> parseChunk(String data) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(data)) {
+            return read(parser, "delta", JsonParser::getText);
+        }
+    }
+
+    private <T> ChatCompletion<T> read(JsonParser parser, String messageField, ValueReader<T> contentReader)
+            throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a chat completion object");
+        }
+        String id = null;
+        String model = null;
+        Choice<T> choice = new Choice<>();
+        LlmUsage usage = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> id = textValue(parser);
+                case "model" -> model = textValue(parser);
+                case "usage" -> usage = value == JsonToken.START_OBJECT
+                        ? objectMapper.readValue(parser, LlmUsage.class)
+                        : null;
+                case "choices" -> readChoices(parser, messageField, contentReader, choice);
+                default -> parser.skipChildren();
+            }
+        }
+        return new ChatCompletion<>(id, model, choice.content, choice.finishReason, usage);
+    }
+
+    private <T> void readChoices(JsonParser parser, String messageField, ValueReader<T> contentReader,
+                                 Choice<T> first) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        boolean isFirst = true;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            if (!isFirst) {
+                parser.skipChildren();
+                continue;
+            }
+            isFirst = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (messageField.equals(field) && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        boolean content = "content".equals(parser.currentName());
+                        if (parser.nextToken() == JsonToken.VALUE_STRING && content) {
+                            first.content = contentReader.read(parser);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else if ("finish_reason".equals(field)) {
+                    first.finishReason = textValue(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private String textValue(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static final class Choice<T> {
+        private T content;
+        private String finishReason;
+    }
+}
@@ -0,0 +1,115 @@
+package com.studyforge.service.llm;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Client for the provider's batch API: a JSONL file of chat completion requests is uploaded,
+ * a batch is created for it, and once the batch completes its output file is downloaded.
+ *
+ * Batches are answered within the completion window instead of right away, at a lower price and
+ * against a quota separate from the interactive one.
+ */
+@Component
+public class LlmBatchClient {
+
+    public static final String CHAT_COMPLETIONS_URL = "/v1/chat/completions";
+
+    /**
+     * State of a batch on the provider's side.
+     *
+     * @param status validating, in_progress, finalizing, completed, failed, expired, cancelling or cancelled
+     * @param outputFileId the file with the answered requests, once the batch has finished
+     * @param errorFileId the file with the requests that failed, if any
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record BatchStatus(String id,
+                              String status,
+                              @JsonProperty("output_file_id") String outputFileId,
+                              @JsonProperty("error_file_id") String errorFileId) {
+
+        public boolean isFinished() {
+            return switch (status) {
+                case "completed", "failed", "expired", "cancelled" -> true;
+                default -> false;
+            };
+        }
+    }
+
+    /**
+     * Consumes one line of a downloaded JSONL file, parsed.
+     */
+    @FunctionalInterface
+    public interface LineHandler {
+        void handle(JsonNode line);
+    }
+
+    private final LlmHttpClient llmHttpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${openai.batch.completion-window:24h}")
+    private String completionWindow;
+
+    // File uploads and downloads can be large, so they get a longer deadline than completions
+    @Value("${openai.batch.transfer-deadline-ms:300000}")
+    private long transferDeadlineMs;
+
+    public LlmBatchClient(LlmHttpClient llmHttpClient) {
+        this.llmHttpClient = llmHttpClient;
+    }
+
+    /**
+     * Upload a JSONL file of requests.
+     *
+     * @return the id of the uploaded file
+     */
+    public String uploadRequests(byte[] jsonl) {
+        JsonNode file = llmHttpClient.postMultipart("/files", Map.of("purpose", "batch"), "file", "batch.jsonl",
+                jsonl, transferDeadline(), objectMapper::readTree);
+        return file.path("id").asText();
+    }
+
+    public BatchStatus createBatch(String inputFileId) {
+        Map<String, Object> request = Map.of(
+                "input_file_id", inputFileId,
+                "endpoint", CHAT_COMPLETIONS_URL,
+                "completion_window", completionWindow);
+        return llmHttpClient.postJson("/batches", request, llmHttpClient.getDefaultDeadline(),
+                body -> objectMapper.readValue(body, BatchStatus.class));
+    }
+
+    public BatchStatus getBatch(String batchId) {
+        return llmHttpClient.get("/batches/" + batchId, llmHttpClient.getDefaultDeadline(),
+                body -> objectMapper.readValue(body, BatchStatus.class));
+    }
+
+    /**
+     * Download a file line by line, without holding all of it in memory.
+     */
+    public void readFile(String fileId, LineHandler handler) {
+        llmHttpClient.get("/files/" + fileId + "/content", transferDeadline(), body -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    handler.handle(objectMapper.readTree(line));
+                }
+            }
+            return null;
+        });
+    }
+
+    private Duration transferDeadline() {
+        return Duration.ofMillis(transferDeadlineMs);
+    }
+}
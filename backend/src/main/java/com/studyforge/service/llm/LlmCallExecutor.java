@@ -0,0 +1,338 @@
+package com.studyforge.service.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Runs calls to the LLM provider with admission control and resilience:
+ *
+ * <ul>
+ *   <li>the {@link LlmCircuitBreaker} fails calls fast while the provider is unhealthy;</li>
+ *   <li>the {@link LlmRateLimiter} admits every attempt against the quota;</li>
+ *   <li>attempts failing with a retryable status are retried a bounded number of times after a
+ *   decorrelated-jitter backoff (or the provider's Retry-After, when it fits under the cap);</li>
+ *   <li>optionally, a call still running after the p95 latency of recent calls is hedged with a
+ *   duplicate request, and whichever answers first wins.</li>
+ * </ul>
+ *
+ * Calls that ran into their deadline are not retried, so a slow upstream costs one deadline at
+ * most.
+ *
+ * The latency of every admitted attempt is reported to the {@link LlmModelRouter} for its SLO
+ * check: the time to the full response, or to the first token of a stream. Time spent queued for
+ * quota, backing off between retries, or reading the rest of a stream is not counted.
+ */
+@Component
+public class LlmCallExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(LlmCallExecutor.class);
+
+    private static final int LATENCY_SAMPLES = 200;
+
+    /**
+     * One attempt of a call. The attempt registers its in-flight request with {@code onSend} so
+     * that a losing hedge can be cancelled.
+     */
+    @FunctionalInterface
+    public interface LlmCall<T> {
+        T run(Consumer<Cancellable> onSend);
+    }
+
+    /**
+     * One attempt of a streamed call, which reports the arrival of its first content through
+     * {@code onFirstToken}.
+     */
+    @FunctionalInterface
+    public interface StreamingLlmCall<T> {
+        T run(Consumer<Cancellable> onSend, Runnable onFirstToken);
+    }
+
+    private final LlmCircuitBreaker circuitBreaker;
+    private final LlmRateLimiter rateLimiter;
+    private final LlmModelRouter modelRouter;
+    private final Set<Integer> retryableStatuses;
+    private final ThreadPoolExecutor hedgeExecutor;
+    private final Counter retryCounter;
+    private final Counter hedgeCounter;
+
+    // Latencies of recent successful calls, used to derive the hedging delay
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int latencyNext;
+
+    @Value("${openai.resilience.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${openai.resilience.retry.base-delay-ms:200}")
+    private long baseDelayMs;
+
+    @Value("${openai.resilience.retry.max-delay-ms:5000}")
+    private long maxDelayMs;
+
+    @Value("${openai.resilience.hedging.enabled:false}")
+    private boolean hedgingEnabled;
+
+    // Hedging waits until this many latencies are known, and never fires earlier than min-delay-ms
+    @Value("${openai.resilience.hedging.min-samples:20}")
+    private int hedgingMinSamples;
+
+    @Value("${openai.resilience.hedging.min-delay-ms:1000}")
+    private long hedgingMinDelayMs;
+
+    public LlmCallExecutor(LlmCircuitBreaker circuitBreaker, LlmRateLimiter rateLimiter, LlmModelRouter modelRouter,
+                           MeterRegistry meterRegistry,
+                           @Value("${openai.resilience.retry.statuses:0,408,429,500,502,503,504}") String retryableStatuses,
+                           @Value("${openai.resilience.hedging.max-threads:32}") int hedgingMaxThreads) {
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
+        this.modelRouter = modelRouter;
+        this.retryableStatuses = Set.copyOf(Arrays.stream(retryableStatuses.split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .toList());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.hedgeExecutor = new ThreadPoolExecutor(0, hedgingMaxThreads, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "llm-hedge-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.retryCounter = Counter.builder("llm.retries")
+                .description("LLM call attempts repeated after a retryable failure")
+                .register(meterRegistry);
+        this.hedgeCounter = Counter.builder("llm.hedges")
+                .description("Hedged duplicate LLM requests sent")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hedgeExecutor.shutdownNow();
+    }
+
+    /**
+     * Run a complete (non-streamed) call with retries and, if enabled, hedging.
+     *
+     * @param model the model the call is sent to
+     * @param context who the call is made for
+     * @param estimatedTokens the estimated token cost of one attempt
+     * @throws LlmRateLimitException if an attempt could not get quota in time
+     * @throws LlmHttpException if the call failed for good or the circuit is open
+     */
+    public <T> T call(String model, LlmRequestContext context, int estimatedTokens, LlmCall<T> call) {
+        return execute(model, context, estimatedTokens, (onSend, onFirstToken) -> call.run(onSend), false,
+                hedgingEnabled, () -> true);
+    }
+
+    /**
+     * Run a streamed call. Streams are never hedged, and are only retried while
+     * {@code retryAllowed} reports that nothing has been consumed from the failed attempt.
+     */
+    public <T> T callStreaming(String model, LlmRequestContext context, int estimatedTokens,
+                               BooleanSupplier retryAllowed, StreamingLlmCall<T> call) {
+        return execute(model, context, estimatedTokens, call, true, false, retryAllowed);
+    }
+
+    private <T> T execute(String model, LlmRequestContext context, int estimatedTokens, StreamingLlmCall<T> call,
+                          boolean streaming, boolean hedge, BooleanSupplier retryAllowed) {
+        long previousDelayMs = baseDelayMs;
+        for (int attempt = 1; ; attempt++) {
+            circuitBreaker.acquirePermission();
+            try {
+                rateLimiter.acquire(context, estimatedTokens);
+            } catch (RuntimeException e) {
+                circuitBreaker.onIgnored();
+                throw e;
+            }
+
+            long start = System.nanoTime();
+            AtomicBoolean firstToken = new AtomicBoolean();
+            try {
+                T result;
+                if (hedge) {
+                    result = hedged(model, context, estimatedTokens, call);
+                } else if (streaming) {
+                    // How long the rest of a stream takes depends on the length of the answer
+                    result = call.run(request -> {
+                    }, () -> {
+                        if (firstToken.compareAndSet(false, true)) {
+                            modelRouter.recordLatency(model, System.nanoTime() - start);
+                        }
+                    });
+                } else {
+                    result = timedAttempt(model, call, request -> {
+                    });
+                }
+                circuitBreaker.onSuccess();
+                if (hedge) {
+                    recordLatency(System.nanoTime() - start);
+                }
+                return result;
+            } catch (LlmHttpException e) {
+                if (e.isDeadlineExceeded() && !hedge && !firstToken.get()) {
+                    // A provider that stops answering must still show up as slow
+                    modelRouter.recordLatency(model, System.nanoTime() - start);
+                }
+                boolean retryable = isRetryable(e);
+                if (retryable || e.isDeadlineExceeded()) {
+                    circuitBreaker.onFailure();
+                } else {
+                    // The provider answered; a bad request says nothing about its health
+                    circuitBreaker.onSuccess();
+                }
+                if (!retryable || attempt >= maxAttempts || !retryAllowed.getAsBoolean()) {
+                    throw e;
+                }
+
+                // Decorrelated jitter: uniform between the base delay and three times the previous delay
+                long delayMs = Math.min(maxDelayMs,
+                        ThreadLocalRandom.current().nextLong(baseDelayMs, Math.max(baseDelayMs, previousDelayMs * 3) + 1));
+                if (e.getRetryAfter() != null) {
+                    if (e.getRetryAfter().toMillis() > maxDelayMs) {
+                        throw e;
+                    }
+                    delayMs = Math.max(delayMs, e.getRetryAfter().toMillis());
+                }
+                previousDelayMs = delayMs;
+                retryCounter.increment();
+                logger.warn("LLM call attempt {} of {} failed ({}), retrying in {} ms",
+                        attempt, maxAttempts, e.getMessage(), delayMs);
+                sleep(delayMs);
+            } catch (RuntimeException e) {
+                // Failures of our own response handling are not the provider's
+                circuitBreaker.onIgnored();
+                throw e;
+            }
+        }
+    }
+
+    private boolean isRetryable(LlmHttpException e) {
+        return !(e instanceof LlmCircuitOpenException)
+                && !e.isDeadlineExceeded()
+                && retryableStatuses.contains(e.getStatusCode());
+    }
+
+    /**
+     * Send the call and, if it has not answered after the hedging delay, a duplicate. The first
+     * success wins and the other request is cancelled; the call fails only if both do.
+     */
+    private <T> T hedged(String model, LlmRequestContext context, int estimatedTokens, StreamingLlmCall<T> call) {
+        long delayMs = hedgeDelayMs();
+        if (delayMs < 0) {
+            return timedAttempt(model, call, request -> {
+            });
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        List<Cancellable> requests = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger(1);
+        try {
+            hedgeExecutor.execute(() -> runAttempt(model, call, result, requests, running));
+        } catch (RejectedExecutionException e) {
+            return timedAttempt(model, call, request -> {
+            });
+        }
+
+        try {
+            try {
+                return result.get(delayMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // The duplicate only goes out if the quota has room for it right now
+                if (rateLimiter.tryAcquire(context, estimatedTokens)) {
+                    running.incrementAndGet();
+                    try {
+                        hedgeExecutor.execute(() -> runAttempt(model, call, result, requests, running));
+                        hedgeCounter.increment();
+                        logger.debug("Hedging LLM call after {} ms", delayMs);
+                    } catch (RejectedExecutionException rejected) {
+                        running.decrementAndGet();
+                    }
+                }
+                return result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmHttpException("Interrupted while waiting for the LLM provider", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new LlmHttpException("LLM call failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            // Cancels the losing request; cancelling one that already finished is harmless
+            requests.forEach(Cancellable::cancel);
+        }
+    }
+
+    private <T> void runAttempt(String model, StreamingLlmCall<T> call, CompletableFuture<T> result,
+                                List<Cancellable> requests, AtomicInteger running) {
+        try {
+            result.complete(timedAttempt(model, call, requests::add));
+        } catch (RuntimeException e) {
+            if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Run one non-streamed attempt and report how long it took to the router.
+     */
+    private <T> T timedAttempt(String model, StreamingLlmCall<T> call, Consumer<Cancellable> onSend) {
+        long start = System.nanoTime();
+        T result = call.run(onSend, () -> {
+        });
+        modelRouter.recordLatency(model, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * @return the p95 of recent call latencies, or -1 while too few calls were seen to hedge
+     */
+    private synchronized long hedgeDelayMs() {
+        if (latencyCount < hedgingMinSamples) {
+            return -1;
+        }
+        long[] samples = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(samples);
+        long p95 = samples[(int) Math.ceil(samples.length * 0.95) - 1];
+        return Math.max(hedgingMinDelayMs, TimeUnit.NANOSECONDS.toMillis(p95));
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[latencyNext] = nanos;
+        latencyNext = (latencyNext + 1) % latencies.length;
+        latencyCount = Math.min(latencyCount + 1, latencies.length);
+    }
+
+    private void sleep(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmHttpException("Interrupted while waiting to retry the LLM call", e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.studyforge.service.llm;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Count-based circuit breaker in front of the LLM provider.
+ *
+ * The outcomes of the last {@code window-size} calls are kept. Once at least
+ * {@code minimum-calls} of them are recorded and the failure rate reaches the threshold, the
+ * breaker opens and calls fail immediately for {@code open-duration}. After that a single trial
+ * call is let through (half-open); its outcome closes the breaker or opens it again.
+ *
+ * The state is published as the llm.circuit.state gauge (0 closed, 1 half-open, 2 open).
+ */
+@Component
+public class LlmCircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(LlmCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final boolean enabled;
+    private final boolean[] failures;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failureCount;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public LlmCircuitBreaker(MeterRegistry meterRegistry,
+                             @Value("${openai.resilience.circuit.enabled:true}") boolean enabled,
+                             @Value("${openai.resilience.circuit.window-size:20}") int windowSize,
+                             @Value("${openai.resilience.circuit.minimum-calls:10}") int minimumCalls,
+                             @Value("${openai.resilience.circuit.failure-rate-threshold:0.5}") double failureRateThreshold,
+                             @Value("${openai.resilience.circuit.open-duration-ms:30000}") long openDurationMs) {
+        this.enabled = enabled;
+        this.failures = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+
+        Gauge.builder("llm.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("LLM circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ask to send a call. Every granted permission must be followed by exactly one of
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}.
+     *
+     * @throws LlmCircuitOpenException while the breaker is open
+     */
+    public synchronized void acquirePermission() {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.OPEN) {
+            long remaining = openedAt + openDurationNanos - System.nanoTime();
+            if (remaining > 0) {
+                throw new LlmCircuitOpenException(Duration.ofNanos(remaining));
+            }
+            state = State.HALF_OPEN;
+            logger.info("LLM circuit half-open, sending a trial call");
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                throw new LlmCircuitOpenException(Duration.ofNanos(openDurationNanos));
+            }
+            trialInFlight = true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            logger.info("LLM circuit closed after a successful trial call");
+            reset();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minimumCalls
+                && (double) failureCount / recorded >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Release a permission whose call says nothing about the provider's health, e.g. one that was
+     * never sent.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == failures.length) {
+            if (failures[next]) {
+                failureCount--;
+            }
+        } else {
+            recorded++;
+        }
+        failures[next] = failure;
+        if (failure) {
+            failureCount++;
+        }
+        next = (next + 1) % failures.length;
+    }
+
+    private void open() {
+        logger.warn("LLM circuit opened: {} of the last {} calls failed", failureCount, recorded);
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        trialInFlight = false;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failureCount = 0;
+        trialInFlight = false;
+    }
+}
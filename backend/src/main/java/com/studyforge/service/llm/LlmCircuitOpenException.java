@@ -0,0 +1,13 @@
+package com.studyforge.service.llm;
+
+import java.time.Duration;
+
+/**
+ * A call rejected without contacting the provider because the circuit breaker is open.
+ */
+public class LlmCircuitOpenException extends LlmHttpException {
+
+    public LlmCircuitOpenException(Duration retryAfter) {
+        super(0, "LLM provider is unavailable, circuit breaker is open", retryAfter);
+    }
+}
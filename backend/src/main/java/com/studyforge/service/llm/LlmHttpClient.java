@@ -0,0 +1,296 @@
+package com.studyforge.service.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Thin client for the LLM provider's REST API on top of the pooled {@code openAIHttpClient}.
+ *
+ * Every call has a deadline. The response timeout is set to the deadline, and a watchdog cancels
+ * the request when the deadline passes, so a stalled upstream cannot hold the calling thread.
+ * The base URL is configurable, which lets tests and load runs point the service at a local
+ * stand-in server.
+ */
+@Component
+public class LlmHttpClient {
+    private static final Logger logger = LoggerFactory.getLogger(LlmHttpClient.class);
+
+    private static final int MAX_ERROR_BODY_LENGTH = 500;
+
+    private static final String EVENT_DATA_PREFIX = "data:";
+    private static final String EVENT_STREAM_DONE = "[DONE]";
+
+    /**
+     * Consumes a successful response body.
+     */
+    @FunctionalInterface
+    public interface BodyHandler<T> {
+        T handle(InputStream body) throws IOException;
+    }
+
+    /**
+     * Consumes the data payload of one server-sent event.
+     */
+    @FunctionalInterface
+    public interface EventHandler {
+        void handle(String data) throws IOException;
+    }
+
+    private final CloseableHttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService deadlineWatchdog;
+
+    @Value("${openai.api.key}")
+    private String apiKey;
+
+    @Value("${openai.api.base-url:https://api.openai.com/v1}")
+    private String baseUrl;
+
+    @Value("${openai.http.deadline-ms:120000}")
+    private long defaultDeadlineMs;
+
+    @Value("${openai.http.pool-timeout-ms:10000}")
+    private long poolTimeoutMs;
+
+    // Longest silence tolerated between two events of a streamed response
+    @Value("${openai.http.stream-idle-timeout-ms:30000}")
+    private long streamIdleTimeoutMs;
+
+    @Value("${openai.http.stream-deadline-ms:300000}")
+    private long streamDeadlineMs;
+
+    public LlmHttpClient(CloseableHttpClient openAIHttpClient) {
+        this.httpClient = openAIHttpClient;
+        this.objectMapper = new ObjectMapper();
+        this.deadlineWatchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "llm-deadline-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deadlineWatchdog.shutdownNow();
+    }
+
+    public Duration getDefaultDeadline() {
+        return Duration.ofMillis(defaultDeadlineMs);
+    }
+
+    public Duration getStreamDeadline() {
+        return Duration.ofMillis(streamDeadlineMs);
+    }
+
+    /**
+     * POST a JSON body and hand the response stream to {@code handler}.
+     *
+     * @param path the API path relative to the configured base URL, e.g. /chat/completions
+     * @param requestBody the object serialized as the JSON request body
+     * @param deadline the time after which the call is abandoned
+     * @param handler reads the body of a 2xx response
+     * @throws LlmHttpException on a non-2xx response, a transport failure or a missed deadline
+     */
+    public <T> T postJson(String path, Object requestBody, Duration deadline, BodyHandler<T> handler) {
+        return postJson(path, requestBody, deadline, handler, request -> {
+        });
+    }
+
+    /**
+     * Like {@link #postJson(String, Object, Duration, BodyHandler)}, handing the in-flight request to
+     * {@code onSend} first so the caller can abandon it early, e.g. when a hedged duplicate wins.
+     */
+    public <T> T postJson(String path, Object requestBody, Duration deadline, BodyHandler<T> handler,
+                          Consumer<Cancellable> onSend) {
+        HttpPost post = new HttpPost(baseUrl + path);
+        try {
+            post.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(requestBody),
+                    ContentType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new LlmHttpException("Failed to serialize request body: " + e.getMessage(), e);
+        }
+        onSend.accept(post);
+        return execute(post, deadline, deadline, handler);
+    }
+
+    /**
+     * POST a multipart form with one file part, as the file upload endpoint expects.
+     *
+     * @param fields plain form fields sent before the file
+     * @param fileField the name of the file part
+     * @throws LlmHttpException on a non-2xx response, a transport failure or a missed deadline
+     */
+    public <T> T postMultipart(String path, Map<String, String> fields, String fileField, String fileName,
+                               byte[] content, Duration deadline, BodyHandler<T> handler) {
+        MultipartEntityBuilder form = MultipartEntityBuilder.create();
+        fields.forEach((name, value) -> form.addTextBody(name, value, ContentType.TEXT_PLAIN));
+        form.addBinaryBody(fileField, content, ContentType.APPLICATION_OCTET_STREAM, fileName);
+        HttpPost post = new HttpPost(baseUrl + path);
+        post.setEntity(form.build());
+        return execute(post, deadline, deadline, handler);
+    }
+
+    /**
+     * GET a resource and hand the response stream to {@code handler}.
+     *
+     * @throws LlmHttpException on a non-2xx response, a transport failure or a missed deadline
+     */
+    public <T> T get(String path, Duration deadline, BodyHandler<T> handler) {
+        return execute(new HttpGet(baseUrl + path), deadline, deadline, handler);
+    }
+
+    /**
+     * POST a JSON body to an endpoint that answers with server-sent events and hand each event's
+     * data to {@code handler} as it arrives, until the stream ends or sends {@code [DONE]}.
+     *
+     * The deadline bounds the whole stream; a gap between events longer than the configured idle
+     * timeout fails the call earlier.
+     *
+     * @throws LlmHttpException on a non-2xx response, a transport failure or a missed deadline
+     */
+    public void postEventStream(String path, Object requestBody, Duration deadline, EventHandler handler) {
+        postEventStream(path, requestBody, deadline, handler, request -> {
+        });
+    }
+
+    /**
+     * Like {@link #postEventStream(String, Object, Duration, EventHandler)}, handing the in-flight
+     * request to {@code onSend} first so the caller can abandon it early.
+     */
+    public void postEventStream(String path, Object requestBody, Duration deadline, EventHandler handler,
+                                Consumer<Cancellable> onSend) {
+        HttpPost post = new HttpPost(baseUrl + path);
+        post.setHeader(HttpHeaders.ACCEPT, "text/event-stream");
+        try {
+            post.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(requestBody),
+                    ContentType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new LlmHttpException("Failed to serialize request body: " + e.getMessage(), e);
+        }
+        Duration idleTimeout = Duration.ofMillis(Math.min(streamIdleTimeoutMs, deadline.toMillis()));
+        onSend.accept(post);
+        execute(post, deadline, idleTimeout, body -> {
+            readEvents(body, handler);
+            return null;
+        });
+    }
+
+    private void readEvents(InputStream body, EventHandler handler) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            // Only data lines carry payload; comments, event names and blank separators are skipped
+            if (!line.startsWith(EVENT_DATA_PREFIX)) {
+                continue;
+            }
+            String data = line.substring(EVENT_DATA_PREFIX.length()).strip();
+            if (EVENT_STREAM_DONE.equals(data)) {
+                return;
+            }
+            if (!data.isEmpty()) {
+                handler.handle(data);
+            }
+        }
+    }
+
+    private <T> T execute(HttpUriRequestBase request, Duration deadline, Duration responseTimeout,
+                          BodyHandler<T> handler) {
+        request.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey);
+        request.setConfig(RequestConfig.custom()
+                .setResponseTimeout(Timeout.of(responseTimeout))
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(Math.min(poolTimeoutMs, deadline.toMillis())))
+                .build());
+
+        AtomicBoolean deadlinePassed = new AtomicBoolean();
+        ScheduledFuture<?> watchdog = deadlineWatchdog.schedule(() -> {
+            deadlinePassed.set(true);
+            request.cancel();
+        }, deadline.toMillis(), TimeUnit.MILLISECONDS);
+        try {
+            return httpClient.execute(request, response -> handleResponse(response, handler));
+        } catch (LlmHttpException e) {
+            throw e;
+        } catch (IOException e) {
+            if (deadlinePassed.get()) {
+                throw new LlmHttpException("LLM call exceeded its deadline of " + deadline.toMillis() + " ms", e, true);
+            }
+            if (request.isCancelled()) {
+                throw new LlmHttpException("LLM call was cancelled", e);
+            }
+            throw new LlmHttpException("LLM call failed: " + e.getMessage(), e);
+        } finally {
+            watchdog.cancel(false);
+        }
+    }
+
+    private <T> T handleResponse(ClassicHttpResponse response, BodyHandler<T> handler) throws IOException {
+        int status = response.getCode();
+        if (status < 200 || status >= 300) {
+            String body = readErrorBody(response);
+            if (body.length() > MAX_ERROR_BODY_LENGTH) {
+                body = body.substring(0, MAX_ERROR_BODY_LENGTH);
+            }
+            logger.warn("LLM provider returned HTTP {}: {}", status, body);
+            throw new LlmHttpException(status, "LLM provider returned HTTP " + status + ": " + body,
+                    parseRetryAfter(response.getFirstHeader(HttpHeaders.RETRY_AFTER)));
+        }
+        try (InputStream body = response.getEntity().getContent()) {
+            return handler.handle(body);
+        }
+    }
+
+    private String readErrorBody(ClassicHttpResponse response) throws IOException {
+        if (response.getEntity() == null) {
+            return "";
+        }
+        try {
+            return EntityUtils.toString(response.getEntity());
+        } catch (ParseException e) {
+            return "";
+        }
+    }
+
+    private Duration parseRetryAfter(Header header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(header.getValue().trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
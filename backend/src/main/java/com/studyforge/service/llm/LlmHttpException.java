@@ -0,0 +1,50 @@
+package com.studyforge.service.llm;
+
+import java.time.Duration;
+
+/**
+ * A failed call to the LLM provider: either a non-2xx response or a transport failure, in which
+ * case the status code is 0.
+ */
+public class LlmHttpException extends RuntimeException {
+
+    private final int statusCode;
+    private final Duration retryAfter;
+    private final boolean deadlineExceeded;
+
+    public LlmHttpException(int statusCode, String message, Duration retryAfter) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+        this.deadlineExceeded = false;
+    }
+
+    public LlmHttpException(String message, Throwable cause) {
+        this(message, cause, false);
+    }
+
+    public LlmHttpException(String message, Throwable cause, boolean deadlineExceeded) {
+        super(message, cause);
+        this.statusCode = 0;
+        this.retryAfter = null;
+        this.deadlineExceeded = deadlineExceeded;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return the delay the provider asked for in a Retry-After header, or null
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return true if the call was abandoned because its deadline passed
+     */
+    public boolean isDeadlineExceeded() {
+        return deadlineExceeded;
+    }
+}
@@ -0,0 +1,129 @@
+package com.studyforge.service.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Usage and latency metrics of LLM-backed features, tagged by operation and model:
+ *
+ * <ul>
+ *   <li>{@code llm.calls}: timer of whole calls (queueing and retries included) with a percentile
+ *   histogram, tagged with the outcome;</li>
+ *   <li>{@code llm.calls.active}: calls currently in flight;</li>
+ *   <li>{@code llm.tokens}: prompt and completion tokens reported by the provider;</li>
+ *   <li>{@code llm.cache.requests}: response cache lookups, tagged hit or miss;</li>
+ *   <li>{@code llm.fallbacks}: generations answered by the non-LLM fallback;</li>
+ *   <li>{@code llm.calls.skipped}: generations that did not need the LLM at all;</li>
+ *   <li>{@code llm.prompt.tokens.saved}: document tokens removed by text compaction.</li>
+ * </ul>
+ */
+@Component
+public class LlmMetrics {
+
+    public static final String TOPIC_GENERATION = "topic-generation";
+    public static final String TOPIC_STREAMING = "topic-streaming";
+    public static final String TOPIC_BATCH = "topic-batch";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_RATE_LIMITED = "rate-limited";
+    public static final String OUTCOME_ERROR = "error";
+
+    public static final String SKIPPED_LOCAL_OUTLINE = "local-outline";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Tags, AtomicInteger> activeCalls = new ConcurrentHashMap<>();
+
+    public LlmMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * A call in flight; {@link #stop(String)} it exactly once.
+     */
+    public final class Call {
+        private final Tags tags;
+        private final AtomicInteger active;
+        private final long start = System.nanoTime();
+
+        private Call(Tags tags, AtomicInteger active) {
+            this.tags = tags;
+            this.active = active;
+        }
+
+        public void stop(String outcome) {
+            active.decrementAndGet();
+            Timer.builder("llm.calls")
+                    .description("Latency of LLM calls, including quota waits and retries")
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public Call start(String operation, String model) {
+        Tags tags = Tags.of("operation", operation, "model", model);
+        AtomicInteger active = activeCalls.computeIfAbsent(tags, t ->
+                meterRegistry.gauge("llm.calls.active", t, new AtomicInteger()));
+        active.incrementAndGet();
+        return new Call(tags, active);
+    }
+
+    public void recordUsage(String operation, String model, LlmUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        tokenCounter(operation, model, "prompt").increment(usage.promptTokens());
+        tokenCounter(operation, model, "completion").increment(usage.completionTokens());
+    }
+
+    public void recordCacheLookup(String operation, boolean hit) {
+        Counter.builder("llm.cache.requests")
+                .description("LLM response cache lookups")
+                .tags("operation", operation, "result", hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordFallback(String operation) {
+        Counter.builder("llm.fallbacks")
+                .description("Generations answered by the non-LLM fallback")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordSkipped(String operation, String reason) {
+        Counter.builder("llm.calls.skipped")
+                .description("Generations that were answered without calling the LLM")
+                .tags("operation", operation, "reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordCompaction(int tokensBefore, int tokensAfter) {
+        Counter.builder("llm.prompt.tokens.saved")
+                .description("Document tokens removed by compaction before prompting")
+                .baseUnit("tokens")
+                .register(meterRegistry)
+                .increment(Math.max(0, tokensBefore - tokensAfter));
+    }
+
+    private Counter tokenCounter(String operation, String model, String type) {
+        return Counter.builder("llm.tokens")
+                .description("Tokens reported by the LLM provider")
+                .baseUnit("tokens")
+                .tags("operation", operation, "model", model, "type", type)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,190 @@
+package com.studyforge.service.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Picks the model for a document.
+ *
+ * Short, well-structured syllabi (under the token and character cut-offs, with enough heading-like
+ * lines and little extraction noise) go to the fast model; long or messy ones go to the large
+ * model configured as {@code openai.model}.
+ *
+ * The router also watches the latency of the large model. When the p95 of its recent calls
+ * exceeds the SLO, every document is sent to the fast model for the cool-down period, after which
+ * the large model is tried again.
+ *
+ * Decisions are counted as llm.routing.decisions; llm.routing.degraded is 1 while the SLO fallback
+ * is active.
+ */
+@Component
+public class LlmModelRouter {
+    private static final Logger logger = LoggerFactory.getLogger(LlmModelRouter.class);
+
+    // Lines that look like section headings: "Week 3", "Unit 2:", "1.2 Sorting", "MIDTERM EXAM", "Readings:"
+    private static final Pattern HEADING = Pattern.compile(
+            "^\\s*((?i:week|unit|module|chapter|lecture|session|part|section|topic|lesson)\\s*\\d+\\b.*"
+                    + "|\\d+(\\.\\d+)*[.)]?\\s+\\p{L}.*"
+                    + "|[\\p{Lu}\\d][\\p{Lu}\\d &:,/-]{3,}"
+                    + "|[^.]{3,80}:)\\s*$");
+
+    public static final String REASON_SHORT = "short";
+    public static final String REASON_LONG = "long";
+    public static final String REASON_UNSTRUCTURED = "unstructured";
+    public static final String REASON_SLO = "slo-fallback";
+    public static final String REASON_DISABLED = "disabled";
+
+    /**
+     * @param model the model to use
+     * @param reason why it was chosen, one of the REASON_ constants
+     */
+    public record Route(String model, String reason) {
+    }
+
+    private final TokenCounter tokenCounter;
+    private final MeterRegistry meterRegistry;
+    private final String largeModel;
+    private final String fastModel;
+    private final boolean enabled;
+
+    @Value("${openai.routing.fast-max-tokens:3000}")
+    private int fastMaxTokens;
+
+    @Value("${openai.routing.fast-max-chars:12000}")
+    private int fastMaxChars;
+
+    @Value("${openai.routing.min-headings:3}")
+    private int minHeadings;
+
+    // Share of characters that look like extraction debris (control or replacement characters)
+    @Value("${openai.routing.max-noise-ratio:0.02}")
+    private double maxNoiseRatio;
+
+    @Value("${openai.routing.large-model-slo-ms:30000}")
+    private long largeModelSloMs;
+
+    @Value("${openai.routing.slo-min-calls:5}")
+    private int sloMinCalls;
+
+    @Value("${openai.routing.slo-cooldown-ms:300000}")
+    private long sloCooldownMs;
+
+    // Latencies of recent large-model calls
+    private final long[] latencies;
+    private int latencyCount;
+    private int latencyNext;
+    private long degradedUntil;
+    private boolean degraded;
+
+    public LlmModelRouter(TokenCounter tokenCounter, MeterRegistry meterRegistry,
+                          @Value("${openai.model:gpt-4}") String largeModel,
+                          @Value("${openai.routing.fast-model:gpt-4o-mini}") String fastModel,
+                          @Value("${openai.routing.enabled:true}") boolean enabled,
+                          @Value("${openai.routing.slo-window:20}") int sloWindow) {
+        this.tokenCounter = tokenCounter;
+        this.meterRegistry = meterRegistry;
+        this.largeModel = largeModel;
+        this.fastModel = fastModel;
+        this.enabled = enabled && fastModel != null && !fastModel.isBlank() && !fastModel.equals(largeModel);
+        this.latencies = new long[sloWindow];
+
+        Gauge.builder("llm.routing.degraded", this, router -> router.isDegraded() ? 1 : 0)
+                .description("1 while documents are routed to the fast model because the large one is slow")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Choose the model for topic generation from {@code documentText}.
+     */
+    public Route route(String documentText) {
+        Route route = decide(documentText);
+        Counter.builder("llm.routing.decisions")
+                .description("Model routing decisions")
+                .tags("model", route.model(), "reason", route.reason())
+                .register(meterRegistry)
+                .increment();
+        logger.info("Routing document of {} characters to {} ({})", documentText.length(), route.model(), route.reason());
+        return route;
+    }
+
+    /**
+     * Report the latency of a finished call so the router can detect a slow large model.
+     */
+    public void recordLatency(String model, long nanos) {
+        if (!enabled || !largeModel.equals(model)) {
+            return;
+        }
+        synchronized (this) {
+            latencies[latencyNext] = nanos;
+            latencyNext = (latencyNext + 1) % latencies.length;
+            latencyCount = Math.min(latencyCount + 1, latencies.length);
+            if (degraded || latencyCount < sloMinCalls) {
+                return;
+            }
+            long p95Ms = TimeUnit.NANOSECONDS.toMillis(p95());
+            if (p95Ms > largeModelSloMs) {
+                degraded = true;
+                degradedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sloCooldownMs);
+                logger.warn("p95 latency of {} is {} ms, over the {} ms SLO; routing to {} for {} ms",
+                        largeModel, p95Ms, largeModelSloMs, fastModel, sloCooldownMs);
+            }
+        }
+    }
+
+    private Route decide(String documentText) {
+        if (!enabled) {
+            return new Route(largeModel, REASON_DISABLED);
+        }
+        if (isDegraded()) {
+            return new Route(fastModel, REASON_SLO);
+        }
+        if (documentText.length() > fastMaxChars || tokenCounter.count(documentText) > fastMaxTokens) {
+            return new Route(largeModel, REASON_LONG);
+        }
+        if (!isStructured(documentText)) {
+            return new Route(largeModel, REASON_UNSTRUCTURED);
+        }
+        return new Route(fastModel, REASON_SHORT);
+    }
+
+    private synchronized boolean isDegraded() {
+        if (degraded && System.nanoTime() - degradedUntil >= 0) {
+            // Give the large model a fresh window once the cool-down is over
+            degraded = false;
+            latencyCount = 0;
+            latencyNext = 0;
+            logger.info("Latency cool-down over, routing long documents to {} again", largeModel);
+        }
+        return degraded;
+    }
+
+    private boolean isStructured(String text) {
+        long noise = text.chars()
+                .filter(c -> c == '\uFFFD' || (Character.isISOControl(c) && c != '\n' && c != '\r' && c != '\t'))
+                .count();
+        if (!text.isEmpty() && (double) noise / text.length() > maxNoiseRatio) {
+            return false;
+        }
+        long headings = text.lines()
+                .filter(line -> !line.isBlank())
+                .filter(line -> HEADING.matcher(line).matches())
+                .limit(minHeadings)
+                .count();
+        return headings >= minHeadings;
+    }
+
+    private long p95() {
+        long[] samples = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(samples);
+        return samples[(int) Math.ceil(samples.length * 0.95) - 1];
+    }
+}
@@ -0,0 +1,24 @@
+package com.studyforge.service.llm;
+
+import java.time.Duration;
+
+/**
+ * An LLM call that was not admitted because the organisation's request or token quota is used up
+ * and the caller's turn did not come within the maximum queue time.
+ */
+public class LlmRateLimitException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public LlmRateLimitException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return how long the caller should wait before trying again
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,348 @@
+package com.studyforge.service.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleSupplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Admission control for calls to the LLM provider, shaped after the organisation's quota.
+ *
+ * Two token buckets model the requests-per-minute and tokens-per-minute limits. Each refills
+ * continuously and holds at most one minute's allowance. A call takes one request and its
+ * estimated token cost (prompt plus expected completion) before it is sent.
+ *
+ * Callers that cannot be admitted right away wait in one scheduling queue. The next caller served
+ * is the one with the most urgent priority class, then the earliest due date (the student who
+ * starts tomorrow goes before next month's course), then the user served least recently, so one
+ * user generating many topics cannot starve others with the same urgency. Every aging interval
+ * spent waiting promotes a caller by one class, so background work still gets through under
+ * sustained interactive load. A caller still waiting after the maximum queue time is rejected
+ * with an {@link LlmRateLimitException} carrying a Retry-After.
+ *
+ * State is published as llm.ratelimit.* metrics; queue depth, wait time and rejections are
+ * tagged with the priority class.
+ */
+@Component
+public class LlmRateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(LlmRateLimiter.class);
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final boolean enabled;
+    private final long maxQueueNanos;
+    private final long agingNanos;
+    private final Bucket requestBucket;
+    private final Bucket tokenBucket;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private final List<Waiter> waiters = new ArrayList<>();
+    // Admission sequence number of each queue key's last admitted call, while anyone is waiting
+    private final Map<String, Long> lastAdmitted = new HashMap<>();
+    private long sequence;
+    private int waitingRequests;
+    private long waitingTokens;
+
+    private final Map<LlmRequestContext.Priority, Timer> waitTimers = new EnumMap<>(LlmRequestContext.Priority.class);
+    private final Map<LlmRequestContext.Priority, Counter> rejectedCounters = new EnumMap<>(LlmRequestContext.Priority.class);
+
+    public LlmRateLimiter(MeterRegistry meterRegistry,
+                          @Value("${openai.rate-limit.enabled:true}") boolean enabled,
+                          @Value("${openai.rate-limit.requests-per-minute:500}") long requestsPerMinute,
+                          @Value("${openai.rate-limit.tokens-per-minute:30000}") long tokensPerMinute,
+                          @Value("${openai.rate-limit.max-queue-ms:30000}") long maxQueueMs,
+                          @Value("${openai.rate-limit.aging-ms:10000}") long agingMs) {
+        this.enabled = enabled;
+        this.maxQueueNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueMs);
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, agingMs));
+        long now = System.nanoTime();
+        this.requestBucket = new Bucket(requestsPerMinute, now);
+        this.tokenBucket = new Bucket(tokensPerMinute, now);
+
+        for (LlmRequestContext.Priority priority : LlmRequestContext.Priority.values()) {
+            String tag = priority.name().toLowerCase();
+            waitTimers.put(priority, Timer.builder("llm.ratelimit.wait")
+                    .description("Time LLM calls spent queued for quota")
+                    .tag("priority", tag)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+            rejectedCounters.put(priority, Counter.builder("llm.ratelimit.rejected")
+                    .description("LLM calls rejected after the maximum queue time")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+            Gauge.builder("llm.ratelimit.queue.depth", this, limiter -> limiter.locked(() -> limiter.waiters.stream()
+                            .filter(waiter -> waiter.priority == priority)
+                            .count()))
+                    .description("LLM calls waiting for quota, by priority class")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+        }
+        gauge(meterRegistry, "llm.ratelimit.requests.available", "Requests left in the per-minute bucket",
+                limiter -> limiter.available(requestBucket));
+        gauge(meterRegistry, "llm.ratelimit.tokens.available", "Tokens left in the per-minute bucket",
+                limiter -> limiter.available(tokenBucket));
+        gauge(meterRegistry, "llm.ratelimit.queue.requests", "LLM calls waiting for quota",
+                limiter -> limiter.locked(() -> limiter.waitingRequests));
+        gauge(meterRegistry, "llm.ratelimit.queue.tokens", "Estimated tokens of the LLM calls waiting for quota",
+                limiter -> limiter.locked(() -> limiter.waitingTokens));
+        gauge(meterRegistry, "llm.ratelimit.queue.users", "Callers with LLM calls waiting for quota",
+                limiter -> limiter.locked(() -> limiter.waiters.stream().map(waiter -> waiter.key).distinct().count()));
+    }
+
+    /**
+     * Wait until the call may be sent and take its share of the quota.
+     *
+     * @param context who the call is made for, how urgent it is and when it is due
+     * @param estimatedTokens the estimated prompt and completion tokens of the call
+     * @throws LlmRateLimitException if the call was not admitted within the maximum queue time
+     */
+    public void acquire(LlmRequestContext context, int estimatedTokens) {
+        if (!enabled) {
+            return;
+        }
+        // A call larger than a whole minute's allowance is admitted once the bucket is full
+        long cost = Math.min(Math.max(estimatedTokens, 0), tokenBucket.capacity);
+        long start = System.nanoTime();
+        long deadline = start + maxQueueNanos;
+
+        lock.lock();
+        try {
+            Waiter waiter = new Waiter(context, cost, start, sequence++);
+            enqueue(waiter);
+            try {
+                boolean wasNext = false;
+                while (true) {
+                    long now = System.nanoTime();
+                    long waitNanos = deadline - now;
+                    if (next(now) == waiter) {
+                        wasNext = true;
+                        requestBucket.refill(now);
+                        tokenBucket.refill(now);
+                        if (requestBucket.available >= 1 && tokenBucket.available >= cost) {
+                            requestBucket.available -= 1;
+                            tokenBucket.available -= cost;
+                            admit(waiter);
+                            waitTimers.get(waiter.priority).record(now - start, TimeUnit.NANOSECONDS);
+                            return;
+                        }
+                        waitNanos = Math.min(waitNanos,
+                                Math.max(requestBucket.nanosUntil(1), tokenBucket.nanosUntil(cost)));
+                    } else {
+                        if (wasNext) {
+                            // An aged waiter overtook this one and may be asleep; hand it the turn
+                            wasNext = false;
+                            changed.signalAll();
+                        }
+                        // Aging can make this waiter the next one without anybody signalling
+                        waitNanos = Math.min(waitNanos, agingNanos);
+                    }
+                    if (now >= deadline) {
+                        throw reject(waiter, now);
+                    }
+                    changed.awaitNanos(Math.max(waitNanos, 1));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for LLM quota");
+            } finally {
+                if (!waiter.admitted) {
+                    remove(waiter);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take quota for an optional call only if it is available right now and nobody is queued for it.
+     *
+     * @return true if the call may be sent
+     */
+    public boolean tryAcquire(LlmRequestContext context, int estimatedTokens) {
+        if (!enabled) {
+            return true;
+        }
+        long cost = Math.min(Math.max(estimatedTokens, 0), tokenBucket.capacity);
+        lock.lock();
+        try {
+            if (!waiters.isEmpty()) {
+                return false;
+            }
+            long now = System.nanoTime();
+            requestBucket.refill(now);
+            tokenBucket.refill(now);
+            if (requestBucket.available < 1 || tokenBucket.available < cost) {
+                return false;
+            }
+            requestBucket.available -= 1;
+            tokenBucket.available -= cost;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(Waiter waiter) {
+        waiters.add(waiter);
+        waitingRequests++;
+        waitingTokens += waiter.cost;
+    }
+
+    /**
+     * @return the waiter to serve next: most urgent aged class, earliest due date, least recently
+     * served caller, then arrival order
+     */
+    private Waiter next(long now) {
+        Comparator<Waiter> order = Comparator
+                .comparingLong((Waiter waiter) -> waiter.priority.ordinal() - (now - waiter.enqueuedAt) / agingNanos)
+                .thenComparingLong(waiter -> waiter.dueByMillis)
+                .thenComparingLong(waiter -> lastAdmitted.getOrDefault(waiter.key, -1L))
+                .thenComparingLong(waiter -> waiter.sequence);
+        Waiter next = null;
+        for (Waiter waiter : waiters) {
+            if (next == null || order.compare(waiter, next) < 0) {
+                next = waiter;
+            }
+        }
+        return next;
+    }
+
+    private void admit(Waiter waiter) {
+        waiter.admitted = true;
+        waiters.remove(waiter);
+        lastAdmitted.put(waiter.key, waiter.sequence);
+        forgetIdleCallers();
+        waitingRequests--;
+        waitingTokens -= waiter.cost;
+        changed.signalAll();
+    }
+
+    private void remove(Waiter waiter) {
+        if (!waiters.remove(waiter)) {
+            return;
+        }
+        forgetIdleCallers();
+        waitingRequests--;
+        waitingTokens -= waiter.cost;
+        changed.signalAll();
+    }
+
+    // Fairness only matters between callers that are waiting
+    private void forgetIdleCallers() {
+        if (waiters.isEmpty()) {
+            lastAdmitted.clear();
+        } else if (lastAdmitted.size() > 2 * waiters.size()) {
+            Set<String> waiting = new HashSet<>();
+            waiters.forEach(waiter -> waiting.add(waiter.key));
+            lastAdmitted.keySet().retainAll(waiting);
+        }
+    }
+
+    private LlmRateLimitException reject(Waiter waiter, long now) {
+        requestBucket.refill(now);
+        tokenBucket.refill(now);
+        // Roughly when the quota will have caught up with everything queued right now
+        long drainNanos = Math.max(requestBucket.nanosUntil(waitingRequests), tokenBucket.nanosUntil(waitingTokens));
+        Duration retryAfter = Duration.ofSeconds(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(drainNanos) + 1));
+        rejectedCounters.get(waiter.priority).increment();
+        logger.warn("Rejected {} LLM call for {} after {} ms in queue; {} calls waiting, retry after {} s",
+                waiter.priority, waiter.key, TimeUnit.NANOSECONDS.toMillis(maxQueueNanos), waitingRequests,
+                retryAfter.toSeconds());
+        return new LlmRateLimitException("LLM quota exhausted, retry after " + retryAfter.toSeconds() + " seconds",
+                retryAfter);
+    }
+
+    private double available(Bucket bucket) {
+        return locked(() -> {
+            bucket.refill(System.nanoTime());
+            return bucket.available;
+        });
+    }
+
+    private double locked(DoubleSupplier supplier) {
+        lock.lock();
+        try {
+            return supplier.getAsDouble();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void gauge(MeterRegistry meterRegistry, String name, String description,
+                       ToDoubleFunction<LlmRateLimiter> value) {
+        Gauge.builder(name, this, value)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A continuously refilling bucket holding at most one minute's allowance.
+     */
+    private static final class Bucket {
+        private final long capacity;
+        private final double refillPerNano;
+        private double available;
+        private long lastRefill;
+
+        private Bucket(long perMinute, long now) {
+            this.capacity = perMinute;
+            this.refillPerNano = (double) perMinute / NANOS_PER_MINUTE;
+            this.available = perMinute;
+            this.lastRefill = now;
+        }
+
+        private void refill(long now) {
+            available = Math.min(capacity, available + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+
+        /**
+         * @return how long until {@code amount} will have been available, ignoring the capacity
+         */
+        private long nanosUntil(double amount) {
+            double missing = amount - available;
+            return missing <= 0 ? 0 : (long) Math.ceil(missing / refillPerNano);
+        }
+    }
+
+    private static final class Waiter {
+        private final String key;
+        private final LlmRequestContext.Priority priority;
+        private final long dueByMillis;
+        private final long cost;
+        private final long enqueuedAt;
+        private final long sequence;
+        private boolean admitted;
+
+        private Waiter(LlmRequestContext context, long cost, long enqueuedAt, long sequence) {
+            this.key = context.queueKey();
+            this.priority = context.priority();
+            this.dueByMillis = context.dueByMillis();
+            this.cost = cost;
+            this.enqueuedAt = enqueuedAt;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.studyforge.service.llm;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Who an LLM call is made for, how urgent it is, and by when its result is needed. Admission
+ * control uses it to order waiting callers.
+ *
+ * @param userId the user the work is done for, or null for system work
+ * @param priority the class of the call
+ * @param dueBy when the student needs the result, e.g. the syllabus' start date or the nearest
+ *              topic deadline; null if there is no such date
+ */
+public record LlmRequestContext(Long userId, Priority priority, LocalDateTime dueBy) {
+
+    /**
+     * Priority classes, most urgent first.
+     */
+    public enum Priority {
+        // Someone is waiting on the response, e.g. a streamed topic generation
+        INTERACTIVE,
+        // Work a user asked for that runs as a background job
+        QUEUED,
+        // Pre-generation and bulk work nobody is waiting on yet
+        BACKGROUND
+    }
+
+    public static LlmRequestContext of(Long userId, Priority priority, LocalDateTime dueBy) {
+        return new LlmRequestContext(userId, priority, dueBy);
+    }
+
+    /**
+     * @return the key callers are grouped by for fairness when queueing for the rate limiter
+     */
+    public String queueKey() {
+        return userId != null ? "user:" + userId : "system";
+    }
+
+    /**
+     * @return the due date in epoch milliseconds, or {@link Long#MAX_VALUE} without one
+     */
+    public long dueByMillis() {
+        return dueBy != null ? dueBy.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,147 @@
+package com.studyforge.service.llm;
+
+import com.studyforge.model.LlmResponseCacheEntry;
+import com.studyforge.repository.LlmResponseCacheRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Two-tier cache of LLM completions keyed by a fingerprint of everything that determines the
+ * answer: model, system prompt, temperature and user prompt.
+ *
+ * The first tier is an in-memory LRU map bounded by entry count; the second is the
+ * llm_response_cache table, shared by all nodes and bounded by TTL and row count. Entries found only
+ * in the database are promoted into memory.
+ */
+@Component
+public class LlmResponseCache {
+    private static final Logger logger = LoggerFactory.getLogger(LlmResponseCache.class);
+
+    private final LlmResponseCacheRepository cacheRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, CachedContent> memory;
+
+    @Value("${openai.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${openai.cache.ttl-hours:720}")
+    private long ttlHours;
+
+    @Value("${openai.cache.db-max-entries:10000}")
+    private long dbMaxEntries;
+
+    private record CachedContent(String content, LocalDateTime expiresAt) {
+    }
+
+    public LlmResponseCache(LlmResponseCacheRepository cacheRepository, TransactionTemplate transactionTemplate,
+                            @Value("${openai.cache.memory-max-entries:500}") int memoryMaxEntries) {
+        this.cacheRepository = cacheRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedContent> eldest) {
+                return size() > memoryMaxEntries;
+            }
+        };
+    }
+
+    /**
+     * Fingerprint a completion request.
+     */
+    public String key(String model, String systemPrompt, double temperature, String userPrompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // Length prefixes keep the boundaries between the parts unambiguous
+            for (String part : new String[] {model, systemPrompt, Double.toString(temperature), userPrompt}) {
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) ':');
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public Optional<String> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (memory) {
+            CachedContent cached = memory.get(key);
+            if (cached != null) {
+                if (cached.expiresAt().isAfter(now)) {
+                    return Optional.of(cached.content());
+                }
+                memory.remove(key);
+            }
+        }
+
+        try {
+            Optional<LlmResponseCacheEntry> entry = cacheRepository.findByCacheKeyAndExpiresAtAfter(key, now);
+            entry.ifPresent(e -> remember(key, new CachedContent(e.getContent(), e.getExpiresAt())));
+            return entry.map(LlmResponseCacheEntry::getContent);
+        } catch (DataAccessException e) {
+            // The durable tier is an optimization; a database hiccup must not fail the generation
+            logger.warn("LLM response cache lookup failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void put(String key, String model, String content) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofHours(ttlHours));
+        remember(key, new CachedContent(content, expiresAt));
+
+        LlmResponseCacheEntry entry = new LlmResponseCacheEntry();
+        entry.setCacheKey(key);
+        entry.setModel(model);
+        entry.setContent(content);
+        entry.setExpiresAt(expiresAt);
+        try {
+            cacheRepository.save(entry);
+        } catch (DataIntegrityViolationException e) {
+            // Another caller cached the same prompt first
+        } catch (DataAccessException e) {
+            logger.warn("Failed to store LLM response in cache: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${openai.cache.eviction-interval-ms:3600000}")
+    public void evict() {
+        transactionTemplate.executeWithoutResult(status -> {
+            int expired = cacheRepository.deleteExpired(LocalDateTime.now());
+            long excess = cacheRepository.count() - dbMaxEntries;
+            int trimmed = excess > 0 ? cacheRepository.deleteOldest(excess) : 0;
+            if (expired > 0 || trimmed > 0) {
+                logger.info("Evicted {} expired and {} excess LLM cache entries", expired, trimmed);
+            }
+        });
+    }
+
+    private void remember(String key, CachedContent content) {
+        synchronized (memory) {
+            memory.put(key, content);
+        }
+    }
+}
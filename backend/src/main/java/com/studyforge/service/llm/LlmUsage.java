@@ -0,0 +1,13 @@
+package com.studyforge.service.llm;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Token usage reported by the LLM provider for one call.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record LlmUsage(@JsonProperty("prompt_tokens") int promptTokens,
+                       @JsonProperty("completion_tokens") int completionTokens,
+                       @JsonProperty("total_tokens") int totalTokens) {
+}
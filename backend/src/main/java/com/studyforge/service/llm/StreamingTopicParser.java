@@ -0,0 +1,123 @@
+package com.studyforge.service.llm;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.studyforge.dto.TopicDto;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Incrementally parses a streamed {@code {"topics": [...]}} completion and hands each topic to a
+ * listener as soon as its object is closed, long before the rest of the document has arrived.
+ *
+ * Content fragments are fed to Jackson's non-blocking parser, so no fragment is ever re-parsed.
+ * Topics are bound and validated by the {@link TopicReader}; malformed ones are skipped.
+ * Not thread-safe; one parser handles one stream.
+ */
+public class StreamingTopicParser implements AutoCloseable {
+
+    private static final String TOPICS_FIELD = "topics";
+
+    private final TopicReader topicReader;
+    private final Consumer<TopicDto> onTopic;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private int depth;
+    private boolean inTopicsArray;
+    private String rootField;
+    private TokenBuffer currentTopic;
+    private int topicCount;
+
+    public StreamingTopicParser(ObjectMapper objectMapper, TopicReader topicReader, Consumer<TopicDto> onTopic)
+            throws IOException {
+        this.topicReader = topicReader;
+        this.onTopic = onTopic;
+        this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feed the next fragment of the completion's content.
+     */
+    public void feed(String fragment) throws IOException {
+        if (fragment.isEmpty()) {
+            return;
+        }
+        byte[] bytes = fragment.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            handle(token);
+        }
+    }
+
+    /**
+     * @return the number of valid topics handed to the listener so far
+     */
+    public int getTopicCount() {
+        return topicCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        feeder.endOfInput();
+        parser.close();
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        if (currentTopic != null) {
+            currentTopic.copyCurrentEvent(parser);
+        }
+
+        switch (token) {
+            case START_OBJECT -> {
+                depth++;
+                if (inTopicsArray && depth == 3 && currentTopic == null) {
+                    currentTopic = new TokenBuffer(parser);
+                    currentTopic.copyCurrentEvent(parser);
+                }
+            }
+            case END_OBJECT -> {
+                if (inTopicsArray && depth == 3 && currentTopic != null) {
+                    emit(currentTopic);
+                    currentTopic = null;
+                }
+                depth--;
+            }
+            case START_ARRAY -> {
+                depth++;
+                if (depth == 2 && TOPICS_FIELD.equals(rootField)) {
+                    inTopicsArray = true;
+                }
+            }
+            case END_ARRAY -> {
+                if (depth == 2) {
+                    inTopicsArray = false;
+                }
+                depth--;
+            }
+            case FIELD_NAME -> {
+                if (depth == 1) {
+                    rootField = parser.currentName();
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void emit(TokenBuffer topicTokens) throws IOException {
+        TopicDto topic = topicReader.bind(topicTokens);
+        if (topic != null) {
+            topicCount++;
+            onTopic.accept(topic);
+        }
+    }
+}
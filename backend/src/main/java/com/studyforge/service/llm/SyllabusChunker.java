@@ -0,0 +1,132 @@
+package com.studyforge.service.llm;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits syllabus text into pieces that each fit a token budget, cutting at section boundaries.
+ *
+ * The text is first divided into sections at heading-like lines ("Week 3", "Unit 2: ...",
+ * "4.1 Sorting", short all-caps lines). Sections are packed greedily into chunks; a section that is
+ * too large on its own is split at paragraph breaks, then at line breaks, and only as a last resort
+ * at a fixed character offset.
+ */
+@Component
+public class SyllabusChunker {
+
+    private static final Pattern HEADING = Pattern.compile(
+            "^(?:(?i:week|unit|module|chapter|section|part|lecture|lesson|topic|session)\\s+[\\dIVXivx]+\\b.*" +
+            "|\\d+(?:\\.\\d+)*[.)]?\\s+\\p{Lu}.*)$");
+    private static final Pattern ALL_CAPS_HEADING = Pattern.compile("^[\\p{Lu}\\d][\\p{Lu}\\d\\s&:,'()-]{2,80}$");
+    private static final Pattern PARAGRAPH_BREAK = Pattern.compile("\\n\\s*\\n");
+
+    private final TokenCounter tokenCounter;
+
+    public SyllabusChunker(TokenCounter tokenCounter) {
+        this.tokenCounter = tokenCounter;
+    }
+
+    /**
+     * @param text the full syllabus text
+     * @param maxTokens the token budget of a single chunk
+     * @return the chunks in document order; a single chunk when the whole text fits
+     */
+    public List<String> chunk(String text, int maxTokens) {
+        List<String> chunks = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return chunks;
+        }
+        if (tokenCounter.count(text) <= maxTokens) {
+            chunks.add(text);
+            return chunks;
+        }
+
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (String section : splitSections(text)) {
+            for (String piece : fitToBudget(section, maxTokens)) {
+                int pieceTokens = tokenCounter.count(piece);
+                if (currentTokens > 0 && currentTokens + pieceTokens > maxTokens) {
+                    chunks.add(current.toString());
+                    current.setLength(0);
+                    currentTokens = 0;
+                }
+                current.append(piece);
+                currentTokens += pieceTokens;
+            }
+        }
+        if (current.length() > 0 && !current.toString().isBlank()) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    private List<String> splitSections(String text) {
+        List<String> sections = new ArrayList<>();
+        StringBuilder section = new StringBuilder();
+        for (String line : text.split("(?<=\\n)")) {
+            if (section.length() > 0 && isHeading(line)) {
+                sections.add(section.toString());
+                section.setLength(0);
+            }
+            section.append(line);
+        }
+        if (section.length() > 0) {
+            sections.add(section.toString());
+        }
+        return sections;
+    }
+
+    private boolean isHeading(String line) {
+        String trimmed = line.strip();
+        if (trimmed.isEmpty() || trimmed.length() > 100) {
+            return false;
+        }
+        if (ALL_CAPS_HEADING.matcher(trimmed).matches()) {
+            // Require at least one letter so page numbers and dates are not headings
+            return trimmed.chars().anyMatch(Character::isLetter);
+        }
+        return HEADING.matcher(trimmed).matches();
+    }
+
+    /**
+     * Break a section that exceeds the budget into paragraph, line or fixed-size pieces.
+     */
+    private List<String> fitToBudget(String section, int maxTokens) {
+        List<String> pieces = new ArrayList<>();
+        if (tokenCounter.count(section) <= maxTokens) {
+            pieces.add(section);
+            return pieces;
+        }
+
+        for (String paragraph : PARAGRAPH_BREAK.split(section)) {
+            String block = paragraph + "\n\n";
+            if (tokenCounter.count(block) <= maxTokens) {
+                pieces.add(block);
+                continue;
+            }
+            for (String line : block.split("(?<=\\n)")) {
+                if (tokenCounter.count(line) <= maxTokens) {
+                    pieces.add(line);
+                    continue;
+                }
+                // In long arithmetic: a line of a few hundred thousand characters would overflow int
+                int step = (int) Math.max(2, (long) line.length() * maxTokens / tokenCounter.count(line));
+                int start = 0;
+                while (start < line.length()) {
+                    int end = Math.min(line.length(), start + step);
+                    if (end < line.length() && Character.isHighSurrogate(line.charAt(end - 1))) {
+                        // Keep a surrogate pair in one piece
+                        end--;
+                    }
+                    pieces.add(line.substring(start, end));
+                    start = end;
+                }
+            }
+        }
+        return pieces;
+    }
+}
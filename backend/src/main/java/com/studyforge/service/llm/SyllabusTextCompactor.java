@@ -0,0 +1,225 @@
+package com.studyforge.service.llm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Strips extraction debris from syllabus text before it is sent to the LLM.
+ *
+ * <ul>
+ *   <li>Running headers and footers: lines at the top or bottom of a page that repeat on a large
+ *   share of the pages, either verbatim or with a number that advances with the page number.
+ *   Pages are separated by form feeds, as written by {@code DocumentTextExtractor} for PDFs; text
+ *   without page breaks only loses unambiguous "Page 3 of 12" lines.</li>
+ *   <li>Page-number lines at the edges of a page.</li>
+ *   <li>Words hyphenated across a line break, soft hyphens and zero-width characters.</li>
+ *   <li>Dot leaders, runs of spaces and tabs, indentation and runs of blank lines. Paragraph breaks
+ *   are kept because the chunker and the fallback split on them.</li>
+ * </ul>
+ *
+ * Besides making every call cheaper, this keeps cache keys equal for uploads that only differ
+ * cosmetically. Tokens saved are counted as llm.prompt.tokens.saved.
+ */
+@Component
+public class SyllabusTextCompactor {
+    private static final Logger logger = LoggerFactory.getLogger(SyllabusTextCompactor.class);
+
+    // Lines looked at for headers and footers at each end of a page
+    private static final int EDGE_LINES = 3;
+
+    private static final Pattern PAGE_NUMBER = Pattern.compile(
+            "(?i)^(?:page\\s+)?[-–(\\[]?\\s*\\d{1,4}\\s*[-–)\\]]?(?:\\s*(?:of|/)\\s*\\d{1,4})?$");
+    private static final Pattern EXPLICIT_PAGE_NUMBER = Pattern.compile(
+            "(?i)^(?:page\\s+\\d{1,4}(?:\\s*(?:of|/)\\s*\\d{1,4})?|\\d{1,4}\\s*(?:of|/)\\s*\\d{1,4})$");
+    // A number opening or closing a line, as in "CS 101 Syllabus - page 3" or "3 | Fall term"
+    private static final Pattern EDGE_NUMBER = Pattern.compile("^(\\d{1,4})\\b.*|.*?\\b(\\d{1,4})$");
+    private static final Pattern SECTION_LABEL = Pattern.compile(
+            "(?i)^(?:week|unit|module|chapter|section|part|lecture|lesson|topic|session|day|class)\\b.*");
+    private static final Pattern INVISIBLE = Pattern.compile("[\\u00AD\\u200B\\u200C\\u200D\\u2060\\uFEFF]");
+    private static final Pattern WIDE_SPACE = Pattern.compile("[\\t\\u00A0\\u2000-\\u200A\\u202F\\u3000 ]+");
+    private static final Pattern HYPHENATED_BREAK = Pattern.compile("(\\p{L})-\\n(\\p{Ll})");
+    private static final Pattern DOT_LEADER = Pattern.compile(" ?(?:\\. ?){4,}");
+    private static final Pattern BLANK_LINES = Pattern.compile("\\n{3,}");
+
+    private final TokenCounter tokenCounter;
+    private final LlmMetrics llmMetrics;
+
+    @Value("${studyforge.compaction.enabled:true}")
+    private boolean enabled;
+
+    // Share of pages a line must appear on (at the same edge) to count as a running header or footer
+    @Value("${studyforge.compaction.min-page-ratio:0.5}")
+    private double minPageRatio;
+
+    @Value("${studyforge.compaction.min-pages:3}")
+    private int minPages;
+
+    public SyllabusTextCompactor(TokenCounter tokenCounter, LlmMetrics llmMetrics) {
+        this.tokenCounter = tokenCounter;
+        this.llmMetrics = llmMetrics;
+    }
+
+    /**
+     * @param text extracted document text, pages optionally separated by form feeds
+     * @return the text without boilerplate and with normalized whitespace
+     */
+    public String compact(String text) {
+        if (!enabled || text == null || text.isEmpty()) {
+            return text;
+        }
+        long start = System.nanoTime();
+
+        String normalized = INVISIBLE.matcher(text.replace("\r\n", "\n").replace('\r', '\n')).replaceAll("");
+        List<List<String>> pages = new ArrayList<>();
+        for (String page : normalized.split("\f", -1)) {
+            List<String> lines = new ArrayList<>();
+            for (String line : page.split("\n", -1)) {
+                lines.add(WIDE_SPACE.matcher(line).replaceAll(" ").strip());
+            }
+            pages.add(lines);
+        }
+
+        int removedLines = pages.size() >= minPages ? removeRunningLines(pages) : removeExplicitPageNumbers(pages);
+
+        StringBuilder joined = new StringBuilder(normalized.length());
+        for (List<String> page : pages) {
+            for (String line : page) {
+                joined.append(line).append('\n');
+            }
+        }
+        String compacted = HYPHENATED_BREAK.matcher(joined).replaceAll("$1$2");
+        compacted = DOT_LEADER.matcher(compacted).replaceAll(" ");
+        compacted = BLANK_LINES.matcher(compacted).replaceAll("\n\n").strip();
+
+        int tokensBefore = tokenCounter.count(text);
+        int tokensAfter = tokenCounter.count(compacted);
+        llmMetrics.recordCompaction(tokensBefore, tokensAfter);
+        logger.info("Compacted syllabus text from {} to {} tokens ({} boilerplate lines removed across {} pages) in {} ms",
+                tokensBefore, tokensAfter, removedLines, pages.size(), (System.nanoTime() - start) / 1_000_000);
+        return compacted;
+    }
+
+    /**
+     * Blank out headers, footers and page numbers found at the edges of the pages.
+     *
+     * @return the number of lines removed
+     */
+    private int removeRunningLines(List<List<String>> pages) {
+        // Verbatim repeats, and repeats with the number masked that advance in step with the page
+        Map<String, Set<Integer>> verbatim = new HashMap<>();
+        Map<String, Map<Integer, Integer>> numbered = new HashMap<>();
+        for (int pageIndex = 0; pageIndex < pages.size(); pageIndex++) {
+            for (int lineIndex : edgeLines(pages.get(pageIndex))) {
+                String line = pages.get(pageIndex).get(lineIndex);
+                verbatim.computeIfAbsent(line, key -> new HashSet<>()).add(pageIndex);
+                Matcher number = pageCounter(line);
+                if (number != null) {
+                    numbered.computeIfAbsent(mask(line), key -> new HashMap<>())
+                            .putIfAbsent(pageIndex, Integer.parseInt(counterValue(number)) - pageIndex);
+                }
+            }
+        }
+
+        int minOccurrences = Math.max(2, (int) Math.ceil(pages.size() * minPageRatio));
+        Set<String> running = new HashSet<>();
+        verbatim.forEach((line, onPages) -> {
+            if (onPages.size() >= minOccurrences) {
+                running.add(line);
+            }
+        });
+        Set<String> runningNumbered = new HashSet<>();
+        numbered.forEach((masked, offsets) -> {
+            if (offsets.size() >= minOccurrences && advancesWithPage(offsets)) {
+                runningNumbered.add(masked);
+            }
+        });
+
+        int removed = 0;
+        for (List<String> page : pages) {
+            for (int lineIndex : edgeLines(page)) {
+                String line = page.get(lineIndex);
+                if (running.contains(line) || PAGE_NUMBER.matcher(line).matches()
+                        || (pageCounter(line) != null && runningNumbered.contains(mask(line)))) {
+                    page.set(lineIndex, "");
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private int removeExplicitPageNumbers(List<List<String>> pages) {
+        int removed = 0;
+        for (List<String> page : pages) {
+            for (int i = 0; i < page.size(); i++) {
+                if (EXPLICIT_PAGE_NUMBER.matcher(page.get(i)).matches()) {
+                    page.set(i, "");
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return the indexes of the first and last few non-blank lines of the page
+     */
+    private List<Integer> edgeLines(List<String> page) {
+        List<Integer> nonBlank = new ArrayList<>();
+        for (int i = 0; i < page.size(); i++) {
+            if (!page.get(i).isEmpty()) {
+                nonBlank.add(i);
+            }
+        }
+        if (nonBlank.size() <= 2 * EDGE_LINES) {
+            return nonBlank;
+        }
+        List<Integer> edges = new ArrayList<>(nonBlank.subList(0, EDGE_LINES));
+        edges.addAll(nonBlank.subList(nonBlank.size() - EDGE_LINES, nonBlank.size()));
+        return edges;
+    }
+
+    /**
+     * A page counter keeps the same offset to the page index on (almost) every page, which tells it
+     * apart from a heading like "Week 3" that happens to open several pages.
+     */
+    private boolean advancesWithPage(Map<Integer, Integer> offsets) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        offsets.values().forEach(offset -> counts.merge(offset, 1, Integer::sum));
+        int mostCommon = counts.values().stream().max(Integer::compare).orElse(0);
+        return mostCommon >= offsets.size() * 0.8;
+    }
+
+    /**
+     * @return a matcher positioned on the number that could be a page counter, or null if the line
+     * has none. Section labels such as "Week 3" are never counters, even when they open every page.
+     */
+    private Matcher pageCounter(String line) {
+        if (SECTION_LABEL.matcher(line).matches()) {
+            return null;
+        }
+        Matcher matcher = EDGE_NUMBER.matcher(line);
+        return matcher.matches() ? matcher : null;
+    }
+
+    private String counterValue(Matcher counter) {
+        return counter.group(1) != null ? counter.group(1) : counter.group(2);
+    }
+
+    private String mask(String line) {
+        Matcher counter = pageCounter(line);
+        int group = counter.group(1) != null ? 1 : 2;
+        return line.substring(0, counter.start(group)) + "#" + line.substring(counter.end(group));
+    }
+}
@@ -0,0 +1,77 @@
+package com.studyforge.service.llm;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Counts model tokens in process with the byte-pair encoding of the GPT chat models, so prompt
+ * sizes are known before a call is sent.
+ *
+ * Counting uses the cl100k_base merge table bundled with jtokkit, loaded once when the counter is
+ * created. Models on the newer o200k_base encoding are counted with cl100k_base too; its larger
+ * vocabulary only makes their real counts a little lower, so budgets stay on the safe side.
+ */
+@Component
+public class TokenCounter {
+
+    private static final int DEFAULT_CONTEXT_WINDOW = 8192;
+
+    // Every chat message costs a few tokens of framing, and the reply is primed with a few more
+    private static final int TOKENS_PER_MESSAGE = 4;
+    private static final int TOKENS_PER_REPLY = 3;
+
+    // Context windows of the model families, matched by the longest prefix of the model name
+    private static final Map<String, Integer> CONTEXT_WINDOWS = new LinkedHashMap<>();
+
+    static {
+        CONTEXT_WINDOWS.put("gpt-4o", 128_000);
+        CONTEXT_WINDOWS.put("gpt-4.1", 1_047_576);
+        CONTEXT_WINDOWS.put("gpt-4-turbo", 128_000);
+        CONTEXT_WINDOWS.put("gpt-4-1106", 128_000);
+        CONTEXT_WINDOWS.put("gpt-4-0125", 128_000);
+        CONTEXT_WINDOWS.put("gpt-4-32k", 32_768);
+        CONTEXT_WINDOWS.put("gpt-4", 8_192);
+        CONTEXT_WINDOWS.put("gpt-3.5-turbo", 16_385);
+    }
+
+    private final Encoding encoding;
+
+    public TokenCounter() {
+        this.encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+    }
+
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        // Special-token markers in a document are plain text to us
+        return encoding.countTokensOrdinary(text);
+    }
+
+    /**
+     * @return the tokens a system and user message pair costs as a chat prompt
+     */
+    public int countPrompt(String systemPrompt, String userPrompt) {
+        return count(systemPrompt) + count(userPrompt) + 2 * TOKENS_PER_MESSAGE + TOKENS_PER_REPLY;
+    }
+
+    /**
+     * @return the context window (prompt plus completion tokens) of the model
+     */
+    public int contextWindow(String model) {
+        String name = model.toLowerCase(Locale.ROOT);
+        String bestPrefix = null;
+        for (String prefix : CONTEXT_WINDOWS.keySet()) {
+            if (name.startsWith(prefix) && (bestPrefix == null || prefix.length() > bestPrefix.length())) {
+                bestPrefix = prefix;
+            }
+        }
+        return bestPrefix != null ? CONTEXT_WINDOWS.get(bestPrefix) : DEFAULT_CONTEXT_WINDOW;
+    }
+}
@@ -0,0 +1,131 @@
+package com.studyforge.service.llm;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.studyforge.dto.TopicDto;
+import com.studyforge.dto.TopicGenerationResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the {@code {"topics": [...]}} document written by the model, one topic at a time.
+ *
+ * Each topic is bound and validated on its own, so a topic with a missing title or a badly typed
+ * field is skipped without discarding the others. If the document itself breaks off (e.g. the
+ * completion hit its token limit) the topics read up to that point are kept.
+ */
+public class TopicReader {
+    private static final Logger logger = LoggerFactory.getLogger(TopicReader.class);
+
+    private static final String TOPICS_FIELD = "topics";
+
+    // Sizes of the topics table columns
+    private static final int MAX_TITLE_LENGTH = 255;
+    private static final int MAX_CONTENT_LENGTH = 2000;
+
+    private static final int DEFAULT_DURATION_MINUTES = 60;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader topicReader;
+
+    public TopicReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.topicReader = objectMapper.readerFor(TopicDto.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    public TopicGenerationResponse read(String json) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            return read(parser);
+        }
+    }
+
+    public TopicGenerationResponse read(JsonParser parser) throws IOException {
+        List<TopicDto> topics = new ArrayList<>();
+        int skipped = 0;
+        try {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    boolean topicsField = TOPICS_FIELD.equals(parser.currentName());
+                    if (parser.nextToken() != JsonToken.START_ARRAY || !topicsField) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    JsonToken token;
+                    while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                        TopicDto topic = null;
+                        if (token == JsonToken.START_OBJECT) {
+                            TokenBuffer buffer = new TokenBuffer(parser);
+                            buffer.copyCurrentStructure(parser);
+                            topic = bind(buffer);
+                        } else {
+                            parser.skipChildren();
+                        }
+                        if (topic != null) {
+                            topics.add(topic);
+                        } else {
+                            skipped++;
+                        }
+                    }
+                }
+            }
+        } catch (JsonProcessingException e) {
+            logger.warn("Topic response is malformed after {} topics, keeping those: {}", topics.size(),
+                    e.getOriginalMessage());
+        }
+        if (skipped > 0) {
+            logger.warn("Skipped {} malformed topics of {}", skipped, topics.size() + skipped);
+        }
+
+        TopicGenerationResponse response = new TopicGenerationResponse();
+        response.setTopics(topics);
+        return response;
+    }
+
+    /**
+     * Bind and validate one topic object.
+     *
+     * @return the topic, or null if it is malformed
+     */
+    public TopicDto bind(TokenBuffer topicTokens) throws IOException {
+        TopicDto topic;
+        try (JsonParser parser = topicTokens.asParser(objectMapper)) {
+            topic = topicReader.readValue(parser);
+        } catch (DatabindException e) {
+            logger.debug("Skipping topic that does not bind: {}", e.getOriginalMessage());
+            return null;
+        }
+        return validate(topic) ? topic : null;
+    }
+
+    /**
+     * Reject topics without a title and bring the rest within what the topics table can store.
+     */
+    private boolean validate(TopicDto topic) {
+        if (topic == null || topic.getTitle() == null || topic.getTitle().isBlank()) {
+            return false;
+        }
+        topic.setTitle(truncate(topic.getTitle().strip(), MAX_TITLE_LENGTH));
+        if (topic.getContent() != null) {
+            topic.setContent(truncate(topic.getContent(), MAX_CONTENT_LENGTH));
+        }
+        if (topic.getEstimatedDurationMinutes() <= 0) {
+            topic.setEstimatedDurationMinutes(DEFAULT_DURATION_MINUTES);
+        }
+        return true;
+    }
+
+    private String truncate(String value, int maxLength) {
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
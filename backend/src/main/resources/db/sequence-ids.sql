@@ -0,0 +1,44 @@
+-- Moves each id sequence past the ids already in its table.
+--
+-- Ids used to come from identity columns. The entities now draw them from pooled sequences
+-- (allocationSize 50), which Hibernate's schema update creates starting at 1. This script runs
+-- after the schema update on every startup (spring.sql.init). It only moves a sequence forward:
+-- either the sequence has never been used, or its table holds ids beyond it. So it is a no-op once
+-- migrated and safe while other nodes are running. With increment 50 and the sequence at the
+-- highest id, the next pool Hibernate allocates starts right after that id.
+
+SELECT setval('users_seq', m.max_id) FROM (SELECT MAX(id) AS max_id FROM users) m, users_seq s
+    WHERE m.max_id > s.last_value OR (NOT s.is_called AND m.max_id IS NOT NULL);
+
+SELECT setval('roles_seq', m.max_id) FROM (SELECT MAX(id) AS max_id FROM roles) m, roles_seq s
+    WHERE m.max_id > s.last_value OR (NOT s.is_called AND m.max_id IS NOT NULL);
+
+SELECT setval('syllabi_seq', m.max_id) FROM (SELECT MAX(id) AS max_id FROM syllabi) m, syllabi_seq s
+    WHERE m.max_id > s.last_value OR (NOT s.is_called AND m.max_id IS NOT NULL);
+
+SELECT setval('topics_seq', m.max_id) FROM (SELECT MAX(id) AS max_id FROM topics) m, topics_seq s
+    WHERE m.max_id > s.last_value OR (NOT s.is_called AND m.max_id IS NOT NULL);
+
+SELECT setval('assignments_seq', m.max_id) FROM (SELECT MAX(id) AS max_id FROM assignments) m, assignments_seq s
+    WHERE m.max_id > s.last_value OR (NOT s.is_called AND m.max_id IS NOT NULL);
+
+SELECT setval('questions_seq', m.max_id) FROM (SELECT MAX(id) AS max_id FROM questions) m, questions_seq s
+    WHERE m.max_id > s.last_value OR (NOT s.is_called AND m.max_id IS NOT NULL);
+
+SELECT setval('question_options_seq', m.max_id) FROM (SELECT MAX(id) AS max_id FROM question_options) m, question_options_seq s
+    WHERE m.max_id > s.last_value OR (NOT s.is_called AND m.max_id IS NOT NULL);
+
+SELECT setval('progress_seq', m.max_id) FROM (SELECT MAX(id) AS max_id FROM progress) m, progress_seq s
+    WHERE m.max_id > s.last_value OR (NOT s.is_called AND m.max_id IS NOT NULL);
+
+SELECT setval('extracted_documents_seq', m.max_id) FROM (SELECT MAX(id) AS max_id FROM extracted_documents) m, extracted_documents_seq s
+    WHERE m.max_id > s.last_value OR (NOT s.is_called AND m.max_id IS NOT NULL);
+
+SELECT setval('llm_response_cache_seq', m.max_id) FROM (SELECT MAX(id) AS max_id FROM llm_response_cache) m, llm_response_cache_seq s
+    WHERE m.max_id > s.last_value OR (NOT s.is_called AND m.max_id IS NOT NULL);
+
+SELECT setval('processing_jobs_seq', m.max_id) FROM (SELECT MAX(id) AS max_id FROM processing_jobs) m, processing_jobs_seq s
+    WHERE m.max_id > s.last_value OR (NOT s.is_called AND m.max_id IS NOT NULL);
+
+SELECT setval('llm_batches_seq', m.max_id) FROM (SELECT MAX(id) AS max_id FROM llm_batches) m, llm_batches_seq s
+    WHERE m.max_id > s.last_value OR (NOT s.is_called AND m.max_id IS NOT NULL);
@@ -14,7 +14,7 @@ import { useRouter } from 'next/router';
 import Head from 'next/head';
 import Link from 'next/link';
 import { assignmentService } from '@/services/assignment';
-import { Assignment, Question, QuestionOption } from '@/types';
+import { Assignment, AssignmentAttempt, Question, QuestionOption } from '@/types';
 
 export default function AssignmentDetail() {
   const router = useRouter();
@@ -29,6 +29,7 @@ export default function AssignmentDetail() {
   const [submitting, setSubmitting] = useState(false);
   const [submitted, setSubmitted] = useState(false);
   const [score, setScore] = useState<number | null>(null);
+  const [attempt, setAttempt] = useState<AssignmentAttempt | null>(null);
   const [showResults, setShowResults] = useState(false);
   const [completeDialogOpen, setCompleteDialogOpen] = useState(false);
   
@@ -43,39 +44,11 @@ export default function AssignmentDetail() {
         // Get assignment data from API
         const data = await assignmentService.getById(assignmentId);
         setAssignment(data);
-        setSubmitted(data.isCompleted);
-        setShowResults(data.isCompleted);
         
-        // If assignment is completed, pre-fill answers
-        if (data.isCompleted) {
-          // Get submission details if available
-          try {
-            const submissions = await assignmentService.getSubmissions(assignmentId);
-            if (submissions && submissions.length > 0) {
-              // Use the most recent submission
-              const latestSubmission = submissions[submissions.length - 1];
-              
-              // Create answer map from submission
-              const answerMap: Record<number, string> = {};
-              if (latestSubmission.answers) {
-                latestSubmission.answers.forEach(answer => {
-                  answerMap[answer.questionId] = answer.userAnswer;
-                });
-              }
-              setAnswers(answerMap);
-            } else if (data.questions) {
-              // Fallback to data from the assignment if it has user answers
-              const answerMap: Record<number, string> = {};
-              data.questions.forEach(q => {
-                if (q.userAnswer) {
-                  answerMap[q.id] = q.userAnswer;
-                }
-              });
-              setAnswers(answerMap);
-            }
-          } catch (submissionErr) {
-            console.error('Error fetching submission details:', submissionErr);
-          }
+        // The current user's latest attempt, if any, is shown as their result
+        const latestAttempt = await assignmentService.getLatestAttempt(assignmentId);
+        if (latestAttempt) {
+          showAttempt(latestAttempt);
         }
       } catch (err) {
         console.error('Error fetching assignment:', err);
@@ -88,6 +61,23 @@ export default function AssignmentDetail() {
     fetchAssignment();
   }, [assignmentId]);
 
+  // Show a graded attempt with the answers it recorded
+  const showAttempt = (result: AssignmentAttempt) => {
+    const answerMap: Record<number, string> = {};
+    result.answers?.forEach(answer => {
+      answerMap[answer.questionId] = answer.answer || '';
+    });
+    setAnswers(answerMap);
+    setAttempt(result);
+    setScore(result.earnedPoints);
+    setSubmitted(true);
+    setShowResults(true);
+  };
+
+  const isAnsweredCorrectly = (questionId: number): boolean => {
+    return attempt?.answers?.find(answer => answer.questionId === questionId)?.isCorrect === true;
+  };
+
   const handleNext = () => {
     setActiveStep((prevActiveStep) => prevActiveStep + 1);
   };
@@ -120,22 +110,7 @@ export default function AssignmentDetail() {
       // Submit answers to the API
       const result = await assignmentService.submitAnswers(assignmentId, questionIds, userAnswers);
       
-      // Set score from API response
-      setScore(result.score || 0);
-      
-      setSubmitted(true);
-      setShowResults(true);
-      
-      // Update local state with the results
-      setAssignment(prev => {
-        if (!prev) return prev;
-        
-        return {
-          ...prev,
-          isCompleted: true,
-          earnedPoints: result.score || 0
-        };
-      });
+      showAttempt(result);
       
       setCompleteDialogOpen(true);
     } catch (err) {
@@ -228,7 +203,7 @@ export default function AssignmentDetail() {
             </Button>
             <Typography variant="h4" component="h1" gutterBottom>
               {assignment.title}
-              {assignment.isCompleted && (
+              {attempt && (
                 <CheckCircle color="success" sx={{ ml: 1, verticalAlign: 'middle' }} />
               )}
             </Typography>
@@ -248,9 +223,9 @@ export default function AssignmentDetail() {
           <Typography variant="body2" color="text.secondary">
             <strong>Total Points:</strong> {assignment.maxPoints}
           </Typography>
-          {assignment.isCompleted && (
+          {attempt && (
             <Typography variant="body2" color="text.secondary">
-              <strong>Your Score:</strong> {assignment.earnedPoints}/{assignment.maxPoints} ({Math.round((assignment.earnedPoints / assignment.maxPoints) * 100)}%)
+              <strong>Your Score:</strong> {attempt.earnedPoints}/{attempt.maxPoints} ({attempt.maxPoints ? Math.round((attempt.earnedPoints / attempt.maxPoints) * 100) : 0}%)
             </Typography>
           )}
         </Box>
@@ -282,20 +257,20 @@ export default function AssignmentDetail() {
             </Typography>
             
             {assignment.questions?.map((question, index) => (
-              <Card key={question.id} sx={{ mb: 3, border: '1px solid', borderColor: question.isCorrect ? 'success.light' : 'error.light' }}>
+              <Card key={question.id} sx={{ mb: 3, border: '1px solid', borderColor: isAnsweredCorrectly(question.id) ? 'success.light' : 'error.light' }}>
                 <CardContent>
                   <Box sx={{ display: 'flex', justifyContent: 'space-between', alignItems: 'flex-start' }}>
                     <Typography variant="h6">
                       Question {index + 1}
                     </Typography>
                     <Box>
-                      {question.isCorrect ? (
+                      {isAnsweredCorrectly(question.id) ? (
                         <Chip icon={<Check />} label="Correct" color="success" size="small" />
                       ) : (
                         <Chip icon={<Close />} label="Incorrect" color="error" size="small" />
                       )}
                       <Typography variant="body2" sx={{ mt: 1, textAlign: 'right' }}>
-                        {question.isCorrect ? question.points : 0}/{question.points} points
+                        {isAnsweredCorrectly(question.id) ? question.points : 0}/{question.points} points
                       </Typography>
                     </Box>
                   </Box>
@@ -313,7 +288,7 @@ export default function AssignmentDetail() {
                     </Typography>
                   </Box>
                   
-                  {!question.isCorrect && (
+                  {!isAnsweredCorrectly(question.id) && (
                     <Box sx={{ bgcolor: 'success.50', p: 2, borderRadius: 1 }}>
                       <Typography variant="body2" color="text.secondary" gutterBottom>
                         Correct Answer:
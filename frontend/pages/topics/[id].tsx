@@ -14,7 +14,8 @@ import { useRouter } from 'next/router';
 import Head from 'next/head';
 import Link from 'next/link';
 // import { topicService } from '@/services/topic';
-import { Topic, Progress, Assignment } from '@/types';
+// import { assignmentService } from '@/services/assignment';
+import { Topic, Progress, Assignment, AssignmentAttempt } from '@/types';
 
 export default function TopicDetail() {
   const router = useRouter();
@@ -28,6 +29,8 @@ export default function TopicDetail() {
   const [generatingAssignments, setGeneratingAssignments] = useState(false);
   const [deleteDialogOpen, setDeleteDialogOpen] = useState(false);
   const [progressDialogOpen, setProgressDialogOpen] = useState(false);
+  // The current user's latest attempt per assignment id
+  const [latestAttempts, setLatestAttempts] = useState<Record<number, AssignmentAttempt>>({});
   
   // Sample data (replace with API calls when services are uncommented)
   const sampleTopic: Topic = {
@@ -97,8 +100,6 @@ Different data structures are suited for different applications:
         content: 'Implement a singly linked list and perform basic operations.',
         difficultyLevel: 'EASY',
         maxPoints: 10,
-        isCompleted: true,
-        earnedPoints: 9,
         createdAt: '2023-07-15T10:00:00Z',
         updatedAt: '2023-07-15T10:00:00Z',
         topicId: 2,
@@ -111,9 +112,7 @@ Different data structures are suited for different applications:
             createdAt: '2023-07-15T10:00:00Z',
             updatedAt: '2023-07-15T10:00:00Z',
             assignmentId: 1,
-            isCorrect: true,
-            correctAnswer: 'Solution with pointer reversal',
-            userAnswer: 'Solution with pointer reversal'
+            correctAnswer: 'Solution with pointer reversal'
           }
         ]
       },
@@ -123,8 +122,6 @@ Different data structures are suited for different applications:
         content: 'Implement tree traversal algorithms and solve graph problems.',
         difficultyLevel: 'MEDIUM',
         maxPoints: 20,
-        isCompleted: false,
-        earnedPoints: 0,
         createdAt: '2023-07-15T10:00:00Z',
         updatedAt: '2023-07-15T10:00:00Z',
         topicId: 2,
@@ -136,8 +133,6 @@ Different data structures are suited for different applications:
         content: 'Implement a hash table with collision resolution strategies.',
         difficultyLevel: 'HARD',
         maxPoints: 30,
-        isCompleted: false,
-        earnedPoints: 0,
         createdAt: '2023-07-15T10:00:00Z',
         updatedAt: '2023-07-15T10:00:00Z',
         topicId: 2,
@@ -146,6 +141,18 @@ Different data structures are suited for different applications:
     ]
   };
 
+  // Sample attempts of the current user; only the first assignment has been submitted
+  const sampleAttempts: AssignmentAttempt[] = [
+    {
+      id: 1,
+      userId: 1,
+      assignmentId: 1,
+      earnedPoints: 9,
+      maxPoints: 10,
+      submittedAt: '2023-08-22T14:00:00'
+    }
+  ];
+
   useEffect(() => {
     if (!topicId) return;
     
@@ -156,9 +163,13 @@ Different data structures are suited for different applications:
         // const data = await topicService.getById(topicId);
         // setTopic(data);
         
+        // const attempts = await assignmentService.getLatestAttemptsByTopic(topicId);
+        // setLatestAttempts(Object.fromEntries(attempts.map(attempt => [attempt.assignmentId, attempt])));
+        
         // Using sample data
         setTopic(sampleTopic);
         setProgressValue(sampleTopic.progress?.completionPercentage || 0);
+        setLatestAttempts(Object.fromEntries(sampleAttempts.map(attempt => [attempt.assignmentId, attempt])));
       } catch (err) {
         console.error('Error fetching topic:', err);
         setError('Failed to load topic details. Please try again later.');
@@ -410,7 +421,7 @@ Different data structures are suited for different applications:
                   {topic.assignments?.length || 0} total assignments
                 </Typography>
                 <Typography variant="body2" color="text.secondary">
-                  {topic.assignments?.filter(a => a.isCompleted).length || 0} completed
+                  {topic.assignments?.filter(a => latestAttempts[a.id]).length || 0} completed
                 </Typography>
                 <Box sx={{ mt: 1 }}>
                   <Button 
@@ -477,7 +488,7 @@ Different data structures are suited for different applications:
                   <AccordionSummary expandIcon={<ExpandMore />}>
                     <Box sx={{ width: '100%', display: 'flex', justifyContent: 'space-between', alignItems: 'center' }}>
                       <Box sx={{ display: 'flex', alignItems: 'center' }}>
-                        {assignment.isCompleted && (
+                        {latestAttempts[assignment.id] && (
                           <CheckCircle color="success" sx={{ mr: 1, fontSize: 20 }} />
                         )}
                         <Typography variant="subtitle1">
@@ -497,7 +508,7 @@ Different data structures are suited for different applications:
                     </Typography>
                     <Box sx={{ display: 'flex', justifyContent: 'space-between', alignItems: 'center' }}>
                       <Typography variant="body2" color="text.secondary">
-                        Points: {assignment.earnedPoints || 0}/{assignment.maxPoints || 0}
+                        Points: {latestAttempts[assignment.id]?.earnedPoints || 0}/{assignment.maxPoints || 0}
                       </Typography>
                       <Button 
                         variant="contained" 
@@ -505,7 +516,7 @@ Different data structures are suited for different applications:
                         component={Link}
                         href={`/assignments/${assignment.id}`}
                       >
-                        {assignment.isCompleted ? 'View Results' : 'Start Assignment'}
+                        {latestAttempts[assignment.id] ? 'View Results' : 'Start Assignment'}
                       </Button>
                     </Box>
                   </AccordionDetails>
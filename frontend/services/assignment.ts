@@ -1,5 +1,5 @@
 import api from './api';
-import { Assignment, SubmissionResponse, CreateAssignmentRequest } from '@/types';
+import { Assignment, AssignmentAttempt, SubmissionResponse, CreateAssignmentRequest } from '@/types';
 
 export const assignmentService = {
   // Get all assignments for a user
@@ -49,9 +49,29 @@ export const assignmentService = {
     await api.delete(`/assignments/${id}`);
   },
   
-  // Submit answers for an assignment
-  submitAnswers: async (assignmentId: number, questionIds: number[], userAnswers: string[]): Promise<SubmissionResponse> => {
-    const response = await api.post(`/assignments/${assignmentId}/submit`, { questionIds, userAnswers });
+  // Submit answers for an assignment, recorded as a new attempt of the current user
+  submitAnswers: async (assignmentId: number, questionIds: number[], userAnswers: string[]): Promise<AssignmentAttempt> => {
+    const response = await api.post(`/assignments/submit`, { assignmentId, questionIds, userAnswers });
+    return response.data;
+  },
+  
+  // Get the current user's attempts at an assignment, latest first
+  getAttempts: async (assignmentId: number): Promise<AssignmentAttempt[]> => {
+    const response = await api.get(`/assignments/${assignmentId}/attempts`);
+    return response.data;
+  },
+  
+  // Get the current user's latest attempt at an assignment with its answers, or null if there is none
+  getLatestAttempt: async (assignmentId: number): Promise<AssignmentAttempt | null> => {
+    const response = await api.get(`/assignments/${assignmentId}/attempts/latest`, {
+      validateStatus: status => status === 200 || status === 404
+    });
+    return response.status === 404 ? null : response.data;
+  },
+  
+  // Get the current user's latest attempt at each assignment of a topic
+  getLatestAttemptsByTopic: async (topicId: number): Promise<AssignmentAttempt[]> => {
+    const response = await api.get(`/assignments/topic/${topicId}/attempts/latest`);
     return response.data;
   },
   
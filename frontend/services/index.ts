@@ -4,3 +4,4 @@ export * from './syllabus';
 export * from './topic';
 export * from './assignment';
 export * from './user';
+export * from './job';
@@ -0,0 +1,26 @@
+import api from './api';
+import { Job } from '@/types';
+
+const POLL_INTERVAL_MS = 1000;
+
+export const jobService = {
+  // Get the current status of a background job
+  getById: async (id: number): Promise<Job> => {
+    const response = await api.get(`/jobs/${id}`);
+    return response.data;
+  },
+
+  // Poll a background job until it finishes and return its result
+  waitForResult: async <T>(id: number): Promise<T> => {
+    while (true) {
+      const job = await jobService.getById(id);
+      if (job.status === 'SUCCEEDED') {
+        return job.result as T;
+      }
+      if (job.status === 'FAILED') {
+        throw new Error(job.errorMessage || 'Background job failed');
+      }
+      await new Promise((resolve) => setTimeout(resolve, POLL_INTERVAL_MS));
+    }
+  },
+};
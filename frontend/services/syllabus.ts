@@ -1,5 +1,6 @@
 import api from './api';
-import { Syllabus, Topic, UploadSyllabusRequest } from '@/types';
+import { jobService } from './job';
+import { Job, Syllabus, Topic, UploadSyllabusRequest } from '@/types';
 
 export const syllabusService = {
   // Get all syllabi for a user
@@ -30,12 +31,13 @@ export const syllabusService = {
     }
     formData.append('userId', userId.toString());
     
-    const response = await api.post('/syllabi/upload', formData, {
+    const response = await api.post<Job>('/syllabi/upload', formData, {
       headers: {
         'Content-Type': 'multipart/form-data',
       },
     });
-    return response.data;
+    // The upload is processed in the background; wait for the created syllabus
+    return jobService.waitForResult<Syllabus>(response.data.id);
   },
   
   // Upload a syllabus document with start and end dates
@@ -73,12 +75,13 @@ export const syllabusService = {
       }
     }
     
-    const response = await api.post('/syllabi/upload-with-dates', formData, {
+    const response = await api.post<Job>('/syllabi/upload-with-dates', formData, {
       headers: {
         'Content-Type': 'multipart/form-data',
       },
     });
-    return response.data;
+    // The upload is processed in the background; wait for the created syllabus
+    return jobService.waitForResult<Syllabus>(response.data.id);
   },
   
   // Process a document using the new API endpoint
@@ -122,18 +125,72 @@ export const syllabusService = {
       type: 'application/json' 
     }));
     
-    const response = await api.post('/syllabi/process', formData, {
+    const response = await api.post<Job>('/syllabi/process', formData, {
       headers: {
         'Content-Type': 'multipart/form-data',
       },
     });
-    return response.data;
+    // The upload is processed in the background; wait for the created syllabus
+    return jobService.waitForResult<Syllabus>(response.data.id);
   },
   
   // Generate topics from syllabus
   generateTopics: async (syllabusId: number): Promise<Topic[]> => {
-    const response = await api.post(`/syllabi/${syllabusId}/generate-topics`);
-    return response.data;
+    const response = await api.post<Job>(`/syllabi/${syllabusId}/generate-topics`);
+    return jobService.waitForResult<Topic[]>(response.data.id);
+  },
+  
+  // Generate topics over server-sent events; onTopic is called as each topic is saved
+  streamTopics: async (syllabusId: number, onTopic: (topic: Topic) => void): Promise<Topic[]> => {
+    // EventSource cannot POST or send the Authorization header, so the stream is read with fetch
+    const token = localStorage.getItem('token');
+    const response = await fetch(`${api.defaults.baseURL}/syllabi/${syllabusId}/generate-topics/stream`, {
+      method: 'POST',
+      headers: {
+        Accept: 'text/event-stream',
+        ...(token ? { Authorization: `Bearer ${token}` } : {}),
+      },
+    });
+    if (!response.ok || !response.body) {
+      throw new Error(`Topic stream failed with status ${response.status}`);
+    }
+
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+    while (true) {
+      const { done, value } = await reader.read();
+      if (done) {
+        break;
+      }
+      buffer += decoder.decode(value, { stream: true });
+
+      // Events are separated by a blank line
+      let separator;
+      while ((separator = buffer.indexOf('\n\n')) !== -1) {
+        const rawEvent = buffer.slice(0, separator);
+        buffer = buffer.slice(separator + 2);
+
+        let eventName = 'message';
+        const data: string[] = [];
+        for (const line of rawEvent.split('\n')) {
+          if (line.startsWith('event:')) {
+            eventName = line.slice(6).trim();
+          } else if (line.startsWith('data:')) {
+            data.push(line.slice(5));
+          }
+        }
+        const payload = JSON.parse(data.join('\n'));
+        if (eventName === 'topic') {
+          onTopic(payload as Topic);
+        } else if (eventName === 'complete') {
+          return payload as Topic[];
+        } else if (eventName === 'error') {
+          throw new Error(payload.message || 'Topic generation failed');
+        }
+      }
+    }
+    throw new Error('Topic stream ended before generation completed');
   },
   
   // Update a syllabus
@@ -51,8 +51,6 @@ export interface Assignment {
   content?: string;
   difficultyLevel: 'EASY' | 'MEDIUM' | 'HARD' | 'GOD';
   maxPoints?: number;
-  isCompleted: boolean;
-  earnedPoints?: number;
   createdAt: string;
   updatedAt: string;
   topicId: number;
@@ -69,8 +67,24 @@ export interface Question {
   assignmentId: number;
   options?: QuestionOption[];
   correctAnswer?: string;
-  userAnswer?: string;
-  isCorrect?: boolean;
+}
+
+// One graded submission of an assignment by the current user
+export interface AssignmentAttempt {
+  id: number;
+  userId: number;
+  assignmentId: number;
+  earnedPoints: number;
+  maxPoints: number;
+  submittedAt: string;
+  answers?: AttemptAnswer[];
+}
+
+export interface AttemptAnswer {
+  questionId: number;
+  answer?: string;
+  // Null for questions that are not graded automatically, such as essays
+  isCorrect?: boolean | null;
 }
 
 export interface QuestionOption {
@@ -80,6 +94,18 @@ export interface QuestionOption {
   questionId: number;
 }
 
+export interface Job {
+  id: number;
+  type: 'PROCESS_DOCUMENT' | 'GENERATE_TOPICS';
+  status: 'QUEUED' | 'RUNNING' | 'SUCCEEDED' | 'FAILED';
+  syllabusId?: number;
+  errorMessage?: string;
+  result?: unknown;
+  createdAt: string;
+  startedAt?: string;
+  finishedAt?: string;
+}
+
 export interface LoginRequest {
   username: string;
   password: string;
@@ -0,0 +1,405 @@
+package com.studyforge.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Embedded stand-in for the OpenAI chat completions endpoint.
+ *
+ * Point the backend at it with {@code OPENAI_BASE_URL=http://localhost:<port>/v1}. In replay mode
+ * it answers from recorded fixtures (or the canned default topics) after a latency drawn from the
+ * configured distribution, and fails a configurable share of calls with an error status to
+ * exercise retries and the circuit breaker. Streamed requests are answered with server-sent
+ * events that deliver the content in small pieces.
+ *
+ * In record mode every request is forwarded to the real provider and its answer is saved as a
+ * fixture before it is returned.
+ *
+ * The batch API is emulated too: JSONL files are uploaded to {@code /files}, batches are created
+ * under {@code /batches} and complete after the configured batch delay, and their output is read
+ * from {@code /files/{id}/content}. Batch requests are answered like replayed completions, with the
+ * error rate applied per request line.
+ */
+public class FakeOpenAIServer implements AutoCloseable {
+
+    public enum Mode {
+        REPLAY, RECORD
+    }
+
+    private static final int STREAM_PIECE_LENGTH = 24;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int port;
+    private final Mode mode;
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final int errorStatus;
+    private final long streamPieceDelayMs;
+    private final FixtureStore fixtures;
+    private final String upstreamUrl;
+    private final String upstreamKey;
+    private final HttpClient upstream = HttpClient.newHttpClient();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final long batchDelayMs;
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    private final Map<String, FakeBatch> batches = new ConcurrentHashMap<>();
+
+    private static final class FakeBatch {
+        private final String id = "batch_" + UUID.randomUUID().toString().replace("-", "");
+        private final String inputFileId;
+        private final long completesAt;
+        private String outputFileId;
+        private String errorFileId;
+        private int completed;
+        private int failed;
+
+        private FakeBatch(String inputFileId, long completesAt) {
+            this.inputFileId = inputFileId;
+            this.completesAt = completesAt;
+        }
+    }
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public FakeOpenAIServer(Map<String, String> options) {
+        this.port = Integer.parseInt(options.getOrDefault("port", "8089"));
+        this.mode = Mode.valueOf(options.getOrDefault("mode", "replay").toUpperCase());
+        this.latency = LatencyDistribution.parse(options.getOrDefault("latency", "lognormal:800:0.6"));
+        this.errorRate = Double.parseDouble(options.getOrDefault("error-rate", "0"));
+        this.errorStatus = Integer.parseInt(options.getOrDefault("error-status", "503"));
+        this.streamPieceDelayMs = Long.parseLong(options.getOrDefault("stream-piece-delay-ms", "15"));
+        this.fixtures = new FixtureStore(objectMapper, Path.of(options.getOrDefault("fixtures", "fixtures")));
+        this.upstreamUrl = options.getOrDefault("upstream-url", "https://api.openai.com/v1");
+        this.upstreamKey = options.getOrDefault("upstream-key", System.getenv("OPENAI_API_KEY"));
+        this.batchDelayMs = Long.parseLong(options.getOrDefault("batch-delay-ms", "10000"));
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        System.out.printf("Fake OpenAI server listening on http://localhost:%d/v1 (%s mode)%n", getPort(), mode);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+        System.out.printf("Fake OpenAI server handled %d requests, %d injected errors%n",
+                requests.get(), injectedErrors.get());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            boolean post = "POST".equals(exchange.getRequestMethod());
+            if (post && path.endsWith("/files")) {
+                uploadFile(exchange);
+                return;
+            } else if (post && path.endsWith("/batches")) {
+                createBatch(exchange);
+                return;
+            } else if (!post && path.matches(".*/batches/[^/]+")) {
+                getBatch(exchange, path.substring(path.lastIndexOf('/') + 1));
+                return;
+            } else if (!post && path.matches(".*/files/[^/]+/content")) {
+                String fileId = path.substring(path.indexOf("/files/") + "/files/".length(), path.lastIndexOf('/'));
+                downloadFile(exchange, fileId);
+                return;
+            } else if (!post || !path.endsWith("/chat/completions")) {
+                sendJson(exchange, 404, error("Unknown endpoint " + path));
+                return;
+            }
+            requests.incrementAndGet();
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            boolean stream = request.path("stream").asBoolean(false);
+            String fingerprint = fixtures.fingerprint(request);
+
+            String content;
+            if (mode == Mode.RECORD) {
+                content = record(request, fingerprint);
+            } else {
+                if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    injectedErrors.incrementAndGet();
+                    sleep(latency.sampleMillis() / 4);
+                    if (errorStatus == 429) {
+                        exchange.getResponseHeaders().set("Retry-After", "1");
+                    }
+                    sendJson(exchange, errorStatus, error("Injected failure"));
+                    return;
+                }
+                sleep(latency.sampleMillis());
+                content = fixtures.findOrDefault(fingerprint);
+            }
+
+            String model = request.path("model").asText("gpt-4");
+            if (stream) {
+                streamContent(exchange, model, content);
+            } else {
+                sendJson(exchange, 200, completion(model, request, content));
+            }
+        } catch (Exception e) {
+            // Once a stream has started the failure can only show as a truncated body
+            if (exchange.getResponseCode() == -1) {
+                sendJson(exchange, 500, error("Fake server failure: " + e.getMessage()));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Store the file part of a multipart upload.
+     */
+    private void uploadFile(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        int boundaryStart = contentType != null ? contentType.indexOf("boundary=") : -1;
+        if (boundaryStart < 0) {
+            sendJson(exchange, 400, error("Expected a multipart/form-data upload"));
+            return;
+        }
+        String boundary = "--" + contentType.substring(boundaryStart + "boundary=".length()).split(";")[0].replace("\"", "").strip();
+        // ISO-8859-1 maps every byte to one char, so the file bytes survive the round trip
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1);
+        byte[] content = null;
+        for (String part : body.split(Pattern.quote(boundary))) {
+            int headerEnd = part.indexOf("\r\n\r\n");
+            if (headerEnd >= 0 && part.substring(0, headerEnd).contains("name=\"file\"")) {
+                String data = part.substring(headerEnd + 4);
+                content = data.substring(0, data.length() - 2).getBytes(StandardCharsets.ISO_8859_1);
+            }
+        }
+        if (content == null) {
+            sendJson(exchange, 400, error("Missing file part"));
+            return;
+        }
+        String fileId = "file-" + UUID.randomUUID().toString().replace("-", "");
+        files.put(fileId, content);
+        ObjectNode file = objectMapper.createObjectNode();
+        file.put("id", fileId);
+        file.put("object", "file");
+        file.put("bytes", content.length);
+        file.put("purpose", "batch");
+        sendJson(exchange, 200, file);
+    }
+
+    private void createBatch(HttpExchange exchange) throws IOException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        String inputFileId = request.path("input_file_id").asText();
+        if (!files.containsKey(inputFileId)) {
+            sendJson(exchange, 400, error("Unknown input file " + inputFileId));
+            return;
+        }
+        FakeBatch batch = new FakeBatch(inputFileId, System.currentTimeMillis() + batchDelayMs);
+        batches.put(batch.id, batch);
+        System.out.printf("Created batch %s for %s%n", batch.id, inputFileId);
+        sendJson(exchange, 200, batchJson(batch));
+    }
+
+    private void getBatch(HttpExchange exchange, String batchId) throws IOException {
+        FakeBatch batch = batches.get(batchId);
+        if (batch == null) {
+            sendJson(exchange, 404, error("Unknown batch " + batchId));
+            return;
+        }
+        synchronized (batch) {
+            if (batch.outputFileId == null && System.currentTimeMillis() >= batch.completesAt) {
+                runBatch(batch);
+            }
+        }
+        sendJson(exchange, 200, batchJson(batch));
+    }
+
+    private void downloadFile(HttpExchange exchange, String fileId) throws IOException {
+        byte[] content = files.get(fileId);
+        if (content == null) {
+            sendJson(exchange, 404, error("Unknown file " + fileId));
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(200, content.length);
+        exchange.getResponseBody().write(content);
+    }
+
+    /**
+     * Answer every request line of the batch and store the output and error files.
+     */
+    private void runBatch(FakeBatch batch) throws IOException {
+        StringBuilder output = new StringBuilder();
+        StringBuilder errors = new StringBuilder();
+        String input = new String(files.get(batch.inputFileId), StandardCharsets.UTF_8);
+        for (String line : input.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            requests.incrementAndGet();
+            JsonNode requestLine = objectMapper.readTree(line);
+            JsonNode request = requestLine.path("body");
+            ObjectNode result = objectMapper.createObjectNode();
+            result.put("id", "batch_req_" + UUID.randomUUID().toString().replace("-", ""));
+            result.put("custom_id", requestLine.path("custom_id").asText());
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.incrementAndGet();
+                result.putNull("response");
+                result.putObject("error").put("message", "Injected failure");
+                errors.append(objectMapper.writeValueAsString(result)).append('\n');
+                batch.failed++;
+                continue;
+            }
+            String content = fixtures.findOrDefault(fixtures.fingerprint(request));
+            ObjectNode response = result.putObject("response");
+            response.put("status_code", 200);
+            response.set("body", completion(request.path("model").asText("gpt-4"), request, content));
+            result.putNull("error");
+            output.append(objectMapper.writeValueAsString(result)).append('\n');
+            batch.completed++;
+        }
+        batch.outputFileId = "file-" + UUID.randomUUID().toString().replace("-", "");
+        files.put(batch.outputFileId, output.toString().getBytes(StandardCharsets.UTF_8));
+        if (errors.length() > 0) {
+            batch.errorFileId = "file-" + UUID.randomUUID().toString().replace("-", "");
+            files.put(batch.errorFileId, errors.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        System.out.printf("Completed batch %s: %d requests answered, %d failed%n", batch.id, batch.completed, batch.failed);
+    }
+
+    private ObjectNode batchJson(FakeBatch batch) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("id", batch.id);
+        body.put("object", "batch");
+        body.put("endpoint", "/v1/chat/completions");
+        body.put("input_file_id", batch.inputFileId);
+        body.put("status", batch.outputFileId != null ? "completed" : "in_progress");
+        body.put("output_file_id", batch.outputFileId);
+        body.put("error_file_id", batch.errorFileId);
+        ObjectNode counts = body.putObject("request_counts");
+        counts.put("completed", batch.completed);
+        counts.put("failed", batch.failed);
+        return body;
+    }
+
+    /**
+     * Forward the request to the real provider without streaming, save the answer and return it.
+     */
+    private String record(JsonNode request, String fingerprint) throws IOException, InterruptedException {
+        ObjectNode forwarded = request.deepCopy();
+        forwarded.remove("stream");
+        HttpRequest upstreamRequest = HttpRequest.newBuilder(URI.create(upstreamUrl + "/chat/completions"))
+                .header("Authorization", "Bearer " + upstreamKey)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofMinutes(3))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(forwarded)))
+                .build();
+        HttpResponse<String> response = upstream.send(upstreamRequest, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Upstream returned HTTP " + response.statusCode() + ": " + response.body());
+        }
+        String content = objectMapper.readTree(response.body()).path("choices").path(0).path("message").path("content").asText();
+        fixtures.save(fingerprint, request.path("model").asText(), content);
+        System.out.printf("Recorded fixture %s%n", fingerprint);
+        return content;
+    }
+
+    private ObjectNode completion(String model, JsonNode request, String content) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("id", "chatcmpl-" + UUID.randomUUID());
+        body.put("object", "chat.completion");
+        body.put("created", System.currentTimeMillis() / 1000);
+        body.put("model", model);
+        ArrayNode choices = body.putArray("choices");
+        ObjectNode choice = choices.addObject();
+        choice.put("index", 0);
+        ObjectNode message = choice.putObject("message");
+        message.put("role", "assistant");
+        message.put("content", content);
+        choice.put("finish_reason", "stop");
+
+        // Roughly four characters per token; the backend counts exactly, this is only for the usage block
+        int promptTokens = request.path("messages").toString().length() / 4;
+        int completionTokens = content.length() / 4;
+        ObjectNode usage = body.putObject("usage");
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", completionTokens);
+        usage.put("total_tokens", promptTokens + completionTokens);
+        return body;
+    }
+
+    private void streamContent(HttpExchange exchange, String model, String content) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        String id = "chatcmpl-" + UUID.randomUUID();
+        OutputStream out = exchange.getResponseBody();
+        for (int start = 0; start < content.length(); start += STREAM_PIECE_LENGTH) {
+            String piece = content.substring(start, Math.min(content.length(), start + STREAM_PIECE_LENGTH));
+            ObjectNode chunk = objectMapper.createObjectNode();
+            chunk.put("id", id);
+            chunk.put("object", "chat.completion.chunk");
+            chunk.put("model", model);
+            ObjectNode choice = chunk.putArray("choices").addObject();
+            choice.put("index", 0);
+            choice.putObject("delta").put("content", piece);
+            writeEvent(out, objectMapper.writeValueAsString(chunk));
+            sleep(streamPieceDelayMs);
+        }
+        writeEvent(out, "[DONE]");
+    }
+
+    private void writeEvent(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private ObjectNode error(String message) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.putObject("error").put("message", message);
+        return body;
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(Math.max(0, millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.studyforge.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Completion contents recorded from the real provider, one JSON file per request fingerprint.
+ *
+ * The fingerprint covers the model and the messages, so replaying the same syllabus answers with
+ * the recorded topics. Requests without a recording get the canned default response.
+ */
+public class FixtureStore {
+
+    private static final String DEFAULT_FIXTURE = "/fixtures/default-topics.json";
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final String defaultContent;
+
+    public FixtureStore(ObjectMapper objectMapper, Path directory) {
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        try (InputStream in = FixtureStore.class.getResourceAsStream(DEFAULT_FIXTURE)) {
+            this.defaultContent = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + DEFAULT_FIXTURE, e);
+        }
+    }
+
+    /**
+     * @return the fingerprint identifying a chat completion request
+     */
+    public String fingerprint(JsonNode request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.path("model").asText().getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request.path("messages")));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("Failed to fingerprint request", e);
+        }
+    }
+
+    public Optional<String> find(String fingerprint) throws IOException {
+        Path file = directory.resolve(fingerprint + ".json");
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(objectMapper.readTree(file.toFile()).path("content").asText());
+    }
+
+    public String findOrDefault(String fingerprint) throws IOException {
+        return find(fingerprint).orElse(defaultContent);
+    }
+
+    public void save(String fingerprint, String model, String content) throws IOException {
+        Files.createDirectories(directory);
+        ObjectNode fixture = objectMapper.createObjectNode();
+        fixture.put("fingerprint", fingerprint);
+        fixture.put("model", model);
+        fixture.put("recordedAt", Instant.now().toString());
+        fixture.put("content", content);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(directory.resolve(fingerprint + ".json").toFile(), fixture);
+    }
+}
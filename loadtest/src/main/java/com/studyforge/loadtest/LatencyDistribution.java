@@ -0,0 +1,52 @@
+package com.studyforge.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Response latencies injected by the fake OpenAI server.
+ *
+ * Specs are written as {@code fixed:800}, {@code uniform:200-2000} or {@code lognormal:800:0.6}
+ * (median in milliseconds and the sigma of the underlying normal). Log-normal latencies have the
+ * long right tail real completions show.
+ */
+public abstract class LatencyDistribution {
+
+    public abstract long sampleMillis();
+
+    public static LatencyDistribution parse(String spec) {
+        String[] parts = spec.split(":");
+        switch (parts[0]) {
+            case "fixed" -> {
+                long millis = Long.parseLong(parts[1]);
+                return new LatencyDistribution() {
+                    @Override
+                    public long sampleMillis() {
+                        return millis;
+                    }
+                };
+            }
+            case "uniform" -> {
+                String[] bounds = parts[1].split("-");
+                long min = Long.parseLong(bounds[0]);
+                long max = Long.parseLong(bounds[1]);
+                return new LatencyDistribution() {
+                    @Override
+                    public long sampleMillis() {
+                        return ThreadLocalRandom.current().nextLong(min, max + 1);
+                    }
+                };
+            }
+            case "lognormal" -> {
+                double median = Double.parseDouble(parts[1]);
+                double sigma = Double.parseDouble(parts[2]);
+                return new LatencyDistribution() {
+                    @Override
+                    public long sampleMillis() {
+                        return Math.round(median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+                    }
+                };
+            }
+            default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.studyforge.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects request latencies per endpoint and prints throughput and percentiles.
+ */
+public class LatencyRecorder {
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long nanos, boolean success) {
+        endpoints.computeIfAbsent(endpoint, key -> new EndpointStats()).record(nanos, success);
+    }
+
+    public String report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-48s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        new TreeMap<>(endpoints).forEach((endpoint, stats) -> {
+            List<Long> samples = stats.sortedSamples();
+            report.append(String.format("%-48s %8d %7d %9.2f %9.1f %9.1f %9.1f %9.1f%n",
+                    endpoint, samples.size(), stats.errors(), samples.size() / seconds,
+                    millis(percentile(samples, 0.50)), millis(percentile(samples, 0.95)),
+                    millis(percentile(samples, 0.99)), millis(samples.isEmpty() ? 0 : samples.get(samples.size() - 1))));
+        });
+        return report.toString();
+    }
+
+    private static long percentile(List<Long> sorted, double quantile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(sorted.size() * quantile) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class EndpointStats {
+        private final List<Long> samples = new ArrayList<>();
+        private int errors;
+
+        synchronized void record(long nanos, boolean success) {
+            samples.add(nanos);
+            if (!success) {
+                errors++;
+            }
+        }
+
+        synchronized int errors() {
+            return errors;
+        }
+
+        synchronized List<Long> sortedSamples() {
+            List<Long> sorted = new ArrayList<>(samples);
+            Collections.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.studyforge.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives the end-to-end StudyForge flows with concurrent virtual users and reports throughput and
+ * latency percentiles per endpoint.
+ *
+ * Every virtual user signs up once and then repeats until the run ends: upload a syllabus, wait
+ * for it, generate topics (as a job or over SSE), read the topics, track and read progress,
+ * generate assignments, read them and submit one. Uploads are made unique per iteration by
+ * default so extraction and LLM caches do not flatter the numbers.
+ */
+public class LoadDriver {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final AtomicInteger completedIterations = new AtomicInteger();
+    private final AtomicInteger failedIterations = new AtomicInteger();
+
+    private final String baseUrl;
+    private final int users;
+    private final Duration duration;
+    private final Duration rampUp;
+    private final Duration jobTimeout;
+    private final boolean streamTopics;
+    private final boolean uniqueDocuments;
+    private final String document;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    public LoadDriver(Map<String, String> options) throws IOException {
+        this.baseUrl = options.getOrDefault("base-url", "http://localhost:8080/api");
+        this.users = Integer.parseInt(options.getOrDefault("users", "10"));
+        this.duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-seconds", "60")));
+        this.rampUp = Duration.ofSeconds(Long.parseLong(options.getOrDefault("ramp-up-seconds", "0")));
+        this.jobTimeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("job-timeout-seconds", "300")));
+        this.streamTopics = Boolean.parseBoolean(options.getOrDefault("stream-topics", "false"));
+        this.uniqueDocuments = Boolean.parseBoolean(options.getOrDefault("unique-documents", "true"));
+        this.document = options.containsKey("document")
+                ? Files.readString(Path.of(options.get("document")))
+                : defaultDocument();
+    }
+
+    public void run() throws InterruptedException {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        ExecutorService virtualUsers = Executors.newFixedThreadPool(users);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        System.out.printf("Driving %s with %d users for %d s (run %s)%n", baseUrl, users, duration.toSeconds(), runId);
+        for (int i = 0; i < users; i++) {
+            int userNumber = i;
+            long startDelayMs = users > 1 ? rampUp.toMillis() * i / (users - 1) : 0;
+            virtualUsers.execute(() -> runUser(httpClient, userNumber, startDelayMs, end));
+        }
+        virtualUsers.shutdown();
+        virtualUsers.awaitTermination(duration.toSeconds() + jobTimeout.toSeconds() + 60, TimeUnit.SECONDS);
+
+        long elapsed = System.nanoTime() - start;
+        System.out.println();
+        System.out.print(recorder.report(elapsed));
+        System.out.printf("%nIterations: %d completed, %d failed in %.1f s%n",
+                completedIterations.get(), failedIterations.get(), elapsed / 1e9);
+    }
+
+    private void runUser(HttpClient httpClient, int userNumber, long startDelayMs, long end) {
+        StudyForgeClient client = new StudyForgeClient(httpClient, objectMapper, recorder, baseUrl, Duration.ofMinutes(2));
+        try {
+            Thread.sleep(startDelayMs);
+            long userId = client.signUpAndSignIn("load-" + runId + "-" + userNumber);
+            for (int iteration = 0; System.nanoTime() < end; iteration++) {
+                try {
+                    runIteration(client, userId, userNumber, iteration);
+                    completedIterations.incrementAndGet();
+                } catch (IOException e) {
+                    failedIterations.incrementAndGet();
+                    System.err.printf("user %d iteration %d failed: %s%n", userNumber, iteration, e);
+                }
+            }
+        } catch (IOException e) {
+            System.err.printf("user %d could not sign in: %s%n", userNumber, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runIteration(StudyForgeClient client, long userId, int userNumber, int iteration)
+            throws IOException, InterruptedException {
+        String text = uniqueDocuments
+                ? document + "\n\nLoad test run " + runId + ", user " + userNumber + ", iteration " + iteration + "\n"
+                : document;
+        JsonNode uploadJob = client.upload("Load test " + userNumber + "-" + iteration,
+                text.getBytes(StandardCharsets.UTF_8), "syllabus.txt", userId);
+        JsonNode syllabus = client.awaitJob("JOB process-document", uploadJob.path("id").asLong(), jobTimeout);
+        long syllabusId = syllabus.path("id").asLong();
+
+        if (streamTopics) {
+            client.streamTopics(syllabusId);
+        } else {
+            JsonNode topicJob = client.post("POST /syllabi/{id}/generate-topics", "/syllabi/" + syllabusId + "/generate-topics");
+            client.awaitJob("JOB generate-topics", topicJob.path("id").asLong(), jobTimeout);
+        }
+
+        JsonNode topics = client.get("GET /topics/syllabus/{id}", "/topics/syllabus/" + syllabusId);
+        if (!topics.isArray() || topics.isEmpty()) {
+            throw new IOException("No topics generated for syllabus " + syllabusId);
+        }
+        long topicId = topics.get(0).path("id").asLong();
+
+        client.post("POST /topics/{id}/progress", "/topics/" + topicId + "/progress?completionPercentage=50");
+        client.put("PUT /progress/topic/{id}", "/progress/topic/" + topicId + "?completionPercentage=75");
+        client.get("GET /progress/syllabus/{id}", "/progress/syllabus/" + syllabusId);
+
+        JsonNode assignments = client.post("POST /assignments/{id}/generate-assignments",
+                "/assignments/" + topicId + "/generate-assignments");
+        client.get("GET /assignments/topic/{id}", "/assignments/topic/" + topicId);
+        if (assignments.isArray() && !assignments.isEmpty()) {
+            submitFirstAssignment(client, assignments.get(0));
+        }
+    }
+
+    private void submitFirstAssignment(StudyForgeClient client, JsonNode assignment) throws IOException, InterruptedException {
+        List<Long> questionIds = new ArrayList<>();
+        List<String> answers = new ArrayList<>();
+        for (JsonNode question : assignment.path("questions")) {
+            questionIds.add(question.path("id").asLong());
+            JsonNode options = question.path("options");
+            answers.add(options.isArray() && !options.isEmpty() ? options.get(0).path("text").asText() : "answer");
+        }
+        client.post("POST /assignments/submit", "/assignments/submit", Map.of(
+                "assignmentId", assignment.path("id").asLong(),
+                "questionIds", questionIds,
+                "userAnswers", answers));
+    }
+
+    private static String defaultDocument() {
+        StringBuilder text = new StringBuilder("INTRODUCTION TO DATA STRUCTURES\n\n");
+        text.append("Course description: a first course in the design and analysis of data structures.\n\n");
+        String[] weeks = {"Arrays and linked lists", "Stacks and queues", "Hash tables", "Binary search trees",
+                "Balanced trees", "Heaps and priority queues", "Graphs and traversal", "Shortest paths",
+                "Sorting algorithms", "Amortized analysis"};
+        for (int i = 0; i < weeks.length; i++) {
+            text.append("Week ").append(i + 1).append(": ").append(weeks[i]).append("\n");
+            text.append("Readings, lecture notes and a problem set covering ").append(weeks[i].toLowerCase())
+                    .append(", their operations, running times and typical applications.\n\n");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package com.studyforge.loadtest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Entry point of the load-test harness.
+ *
+ * <pre>
+ * java -jar target/studyforge-loadtest.jar fake-openai [--port=8089] [--latency=lognormal:800:0.6]
+ *     [--error-rate=0.05] [--error-status=503] [--mode=replay|record] [--fixtures=fixtures]
+ * java -jar target/studyforge-loadtest.jar drive [--base-url=http://localhost:8080/api] [--users=10]
+ *     [--duration-seconds=60] [--ramp-up-seconds=0] [--stream-topics=false] [--document=syllabus.txt]
+ * java -jar target/studyforge-loadtest.jar all [fake-openai and drive options]
+ * java -jar target/studyforge-loadtest.jar bench [JMH options, e.g. PdfExtractionBenchmark -f 1]
+ * </pre>
+ *
+ * {@code all} starts the fake server in-process and drives the backend, which must already be
+ * running with {@code OPENAI_BASE_URL} pointing at the fake server. {@code bench} runs the JMH
+ * micro-benchmarks in {@code com.studyforge.loadtest.bench}.
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: (fake-openai | drive | all) [--option=value ...] | bench [JMH options]");
+            System.exit(2);
+        }
+        if (args[0].equals("bench")) {
+            org.openjdk.jmh.Main.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        Map<String, String> options = parseOptions(args);
+
+        switch (args[0]) {
+            case "fake-openai" -> {
+                FakeOpenAIServer server = new FakeOpenAIServer(options);
+                server.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+                new CountDownLatch(1).await();
+            }
+            case "drive" -> new LoadDriver(options).run();
+            case "all" -> {
+                try (FakeOpenAIServer server = new FakeOpenAIServer(options)) {
+                    server.start();
+                    new LoadDriver(options).run();
+                }
+            }
+            default -> {
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(2);
+            }
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --option=value but got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,208 @@
+package com.studyforge.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Minimal client for the StudyForge REST API that times every request into a
+ * {@link LatencyRecorder} under a templated endpoint name, e.g. {@code GET /topics/syllabus/{id}}.
+ */
+public class StudyForgeClient {
+
+    private static final Duration JOB_POLL_INTERVAL = Duration.ofMillis(500);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final LatencyRecorder recorder;
+    private final String baseUrl;
+    private final Duration requestTimeout;
+    private String token;
+
+    public StudyForgeClient(HttpClient httpClient, ObjectMapper objectMapper, LatencyRecorder recorder,
+                            String baseUrl, Duration requestTimeout) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.recorder = recorder;
+        this.baseUrl = baseUrl;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Create a user, sign in and keep the token for the following requests.
+     *
+     * @return the id of the signed-in user
+     */
+    public long signUpAndSignIn(String username) throws IOException, InterruptedException {
+        Map<String, Object> signup = Map.of(
+                "username", username,
+                "email", username + "@loadtest.studyforge.app",
+                "password", "loadtest-password",
+                "firstName", "Load",
+                "lastName", "Test");
+        send("POST /auth/signup", json("/auth/signup", signup));
+
+        JsonNode jwt = send("POST /auth/signin", json("/auth/signin",
+                Map.of("username", username, "password", "loadtest-password")));
+        token = jwt.path("token").asText();
+        return jwt.path("id").asLong();
+    }
+
+    public JsonNode upload(String title, byte[] document, String fileName, long userId)
+            throws IOException, InterruptedException {
+        String boundary = "----studyforge-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writePart(body, boundary, "title", null, title.getBytes(StandardCharsets.UTF_8));
+        writePart(body, boundary, "description", null, "Load test syllabus".getBytes(StandardCharsets.UTF_8));
+        writePart(body, boundary, "userId", null, Long.toString(userId).getBytes(StandardCharsets.UTF_8));
+        writePart(body, boundary, "file", fileName, document);
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpRequest request = authorized(URI.create(baseUrl + "/syllabi/upload"))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        return send("POST /syllabi/upload", request);
+    }
+
+    /**
+     * Poll a background job until it finishes and return its result. The whole wait is recorded
+     * under {@code endpoint}.
+     */
+    public JsonNode awaitJob(String endpoint, long jobId, Duration timeout) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        while (true) {
+            JsonNode job = send("GET /jobs/{id}", authorized(URI.create(baseUrl + "/jobs/" + jobId)).GET().build());
+            String status = job.path("status").asText();
+            if ("SUCCEEDED".equals(status) || "FAILED".equals(status)) {
+                recorder.record(endpoint, System.nanoTime() - start, "SUCCEEDED".equals(status));
+                if ("FAILED".equals(status)) {
+                    throw new IOException("Job " + jobId + " failed: " + job.path("errorMessage").asText());
+                }
+                return job.path("result");
+            }
+            if (System.nanoTime() > deadline) {
+                recorder.record(endpoint, System.nanoTime() - start, false);
+                throw new IOException("Job " + jobId + " did not finish within " + timeout);
+            }
+            Thread.sleep(JOB_POLL_INTERVAL.toMillis());
+        }
+    }
+
+    /**
+     * Generate topics over server-sent events, recording the time to the first topic and to the
+     * final list.
+     */
+    public JsonNode streamTopics(long syllabusId) throws IOException, InterruptedException {
+        HttpRequest request = authorized(URI.create(baseUrl + "/syllabi/" + syllabusId + "/generate-topics/stream"))
+                .header("Accept", "text/event-stream")
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        long start = System.nanoTime();
+        HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+        if (response.statusCode() / 100 != 2) {
+            recorder.record("SSE /syllabi/{id}/generate-topics/stream complete", System.nanoTime() - start, false);
+            throw new IOException("Topic stream returned HTTP " + response.statusCode());
+        }
+
+        boolean firstTopicSeen = false;
+        String event = null;
+        try (Stream<String> lines = response.body()) {
+            Iterator<String> iterator = lines.iterator();
+            while (iterator.hasNext()) {
+                String line = iterator.next();
+                if (line.startsWith("event:")) {
+                    event = line.substring("event:".length()).trim();
+                } else if (line.startsWith("data:")) {
+                    String data = line.substring("data:".length());
+                    if ("topic".equals(event) && !firstTopicSeen) {
+                        firstTopicSeen = true;
+                        recorder.record("SSE /syllabi/{id}/generate-topics/stream first topic", System.nanoTime() - start, true);
+                    } else if ("complete".equals(event)) {
+                        recorder.record("SSE /syllabi/{id}/generate-topics/stream complete", System.nanoTime() - start, true);
+                        return objectMapper.readTree(data);
+                    } else if ("error".equals(event)) {
+                        recorder.record("SSE /syllabi/{id}/generate-topics/stream complete", System.nanoTime() - start, false);
+                        throw new IOException("Topic stream failed: " + data);
+                    }
+                }
+            }
+        }
+        recorder.record("SSE /syllabi/{id}/generate-topics/stream complete", System.nanoTime() - start, false);
+        throw new IOException("Topic stream ended without a complete event");
+    }
+
+    public JsonNode post(String endpoint, String path) throws IOException, InterruptedException {
+        return send(endpoint, authorized(URI.create(baseUrl + path)).POST(HttpRequest.BodyPublishers.noBody()).build());
+    }
+
+    public JsonNode post(String endpoint, String path, Object body) throws IOException, InterruptedException {
+        return send(endpoint, json(path, body));
+    }
+
+    public JsonNode put(String endpoint, String path) throws IOException, InterruptedException {
+        return send(endpoint, authorized(URI.create(baseUrl + path)).PUT(HttpRequest.BodyPublishers.noBody()).build());
+    }
+
+    public JsonNode get(String endpoint, String path) throws IOException, InterruptedException {
+        return send(endpoint, authorized(URI.create(baseUrl + path)).GET().build());
+    }
+
+    private HttpRequest json(String path, Object body) throws IOException {
+        return authorized(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest.Builder authorized(URI uri) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(requestTimeout);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private JsonNode send(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            recorder.record(endpoint, System.nanoTime() - start, false);
+            throw e;
+        }
+        boolean success = response.statusCode() / 100 == 2;
+        recorder.record(endpoint, System.nanoTime() - start, success);
+        if (!success) {
+            throw new IOException(endpoint + " returned HTTP " + response.statusCode());
+        }
+        return response.body().length == 0 ? objectMapper.nullNode() : objectMapper.readTree(response.body());
+    }
+
+    private void writePart(ByteArrayOutputStream body, String boundary, String name, String fileName, byte[] content)
+            throws IOException {
+        StringBuilder header = new StringBuilder("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(name).append('"');
+        if (fileName != null) {
+            header.append("; filename=\"").append(fileName).append("\"\r\nContent-Type: text/plain");
+        }
+        header.append("\r\n\r\n");
+        body.write(header.toString().getBytes(StandardCharsets.UTF_8));
+        body.write(content);
+        body.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+}
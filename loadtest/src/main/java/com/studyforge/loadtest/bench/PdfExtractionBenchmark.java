@@ -0,0 +1,141 @@
+package com.studyforge.loadtest.bench;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parallel PDF text extraction as the backend's DocumentTextExtractor does it, comparing a parse
+ * of the whole file for every 20-page range with one parse per worker.
+ *
+ * The syllabus is generated once per trial: {@code pages} pages of a few hundred words each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfExtractionBenchmark {
+
+    private static final int PAGES_PER_RANGE = 20;
+    private static final long MAX_MAIN_MEMORY_BYTES = 4L * 1024 * 1024;
+
+    @Param({"80", "400"})
+    public int pages;
+
+    @Param({"4"})
+    public int workers;
+
+    private File pdf;
+    private ExecutorService pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pdf = Files.createTempFile("syllabus-bench", ".pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            for (int page = 1; page <= pages; page++) {
+                PDPage pdPage = new PDPage();
+                document.addPage(pdPage);
+                try (PDPageContentStream content = new PDPageContentStream(document, pdPage)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 10);
+                    content.setLeading(12);
+                    content.newLineAtOffset(50, 740);
+                    content.showText("Week " + page + ": Topic " + page);
+                    for (int line = 0; line < 50; line++) {
+                        content.newLine();
+                        content.showText("Lecture notes line " + line + " covering the readings, exercises and key terms.");
+                    }
+                    content.endText();
+                }
+            }
+            document.save(pdf);
+        }
+        pool = Executors.newFixedThreadPool(workers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+        pdf.delete();
+    }
+
+    @Benchmark
+    public int loadPerRange() throws Exception {
+        List<Future<String>> ranges = new ArrayList<>();
+        for (int startPage = 1; startPage <= pages; startPage += PAGES_PER_RANGE) {
+            int firstPage = startPage;
+            int lastPage = Math.min(startPage + PAGES_PER_RANGE - 1, pages);
+            ranges.add(pool.submit(() -> {
+                try (PDDocument document = load()) {
+                    return strip(document, firstPage, lastPage);
+                }
+            }));
+        }
+        return join(ranges);
+    }
+
+    @Benchmark
+    public int loadPerWorker() throws Exception {
+        int rangeSize = (pages + workers - 1) / workers;
+        List<Future<String>> ranges = new ArrayList<>();
+        for (int startPage = 1; startPage <= pages; startPage += rangeSize) {
+            int firstPage = startPage;
+            int lastPage = Math.min(startPage + rangeSize - 1, pages);
+            ranges.add(pool.submit(() -> {
+                try (PDDocument document = load()) {
+                    return strip(document, firstPage, lastPage);
+                }
+            }));
+        }
+        return join(ranges);
+    }
+
+    private PDDocument load() throws IOException {
+        return PDDocument.load(pdf, MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES));
+    }
+
+    private static String strip(PDDocument document, int firstPage, int lastPage) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setPageEnd("\f");
+        stripper.setStartPage(firstPage);
+        stripper.setEndPage(lastPage);
+        return stripper.getText(document);
+    }
+
+    private static int join(List<Future<String>> ranges) throws InterruptedException, ExecutionException {
+        int length = 0;
+        for (Future<String> range : ranges) {
+            length += range.get().length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,80 @@
+package com.studyforge.loadtest.bench;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of counting a syllabus' prompt tokens: the backend's TokenCounter (jtokkit cl100k_base, as
+ * {@code countTokensOrdinary}) against the four-characters-per-token estimate it replaced.
+ *
+ * The syllabus is generated once per trial from course vocabulary, week headings and dates, about
+ * {@code chars} characters long.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenCountBenchmark {
+
+    private static final double CHARS_PER_TOKEN = 4.0;
+
+    private static final String[] WORDS = {
+            "algorithms", "data", "structures", "sorting", "graphs", "the", "of", "and", "lecture", "reading",
+            "assignment", "due", "chapter", "exam", "midterm", "recursion", "complexity", "analysis", "hashing",
+            "trees", "dynamic", "programming", "greedy", "proofs", "lab", "office", "hours", "quiz", "project"};
+
+    // About 1k, 100k and 600k characters, the last near the upload cap
+    @Param({"1000", "100000", "600000"})
+    public int chars;
+
+    private Encoding encoding;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(chars + 100);
+        int week = 1;
+        while (builder.length() < chars) {
+            builder.append("Week ").append(week).append(": ").append(WORDS[random.nextInt(WORDS.length)])
+                    .append(" (due 2024-0").append(1 + week % 9).append('-').append(10 + week % 18).append(")\n");
+            for (int sentence = 0; sentence < 8; sentence++) {
+                for (int word = 0; word < 12; word++) {
+                    builder.append(WORDS[random.nextInt(WORDS.length)]).append(word == 11 ? ". " : " ");
+                }
+            }
+            builder.append("\n\n");
+            week++;
+        }
+        text = builder.substring(0, chars);
+    }
+
+    @Benchmark
+    public int charEstimate() {
+        return (int) Math.ceil(text.length() / CHARS_PER_TOKEN);
+    }
+
+    @Benchmark
+    public int cl100kCount() {
+        return encoding.countTokensOrdinary(text);
+    }
+}